@@ -1,10 +1,33 @@
 package com.github.jshaptic.minimatch;
 
+import java.util.Iterator;
 import java.util.regex.Pattern;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
 
 public class BalancedMatchBenchmark {
 
+  @State(Scope.Benchmark)
+  public static class Template {
+
+    private String text;
+    private BalancedScanner scanner;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      StringBuilder result = new StringBuilder();
+      for (int i = 0; i < 10000; i++) {
+        result.append("line ").append(i).append(" {name{").append(i).append("}} and {value}\n");
+      }
+      text = result.toString();
+      scanner = BalancedScanner.of("{", "}");
+    }
+
+  }
+
   public static void main(String[] args) throws Exception {
     org.openjdk.jmh.Main.main(args);
   }
@@ -47,4 +70,25 @@ public class BalancedMatchBenchmark {
         "pre  {   in{nest}   }  post");
   }
 
+  @Benchmark
+  public int balancedTemplate(Template template) {
+    int count = 0;
+    String str = template.text;
+    BalancedMatch m;
+    while ((m = BalancedMatch.balanced("{", "}", str)) != null) {
+      count++;
+      str = m.getPost();
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int scanTemplate(Template template) {
+    int count = 0;
+    for (Iterator<BalancedScanner.Pair> pairs = template.scanner.scan(template.text); pairs.hasNext(); pairs.next()) {
+      count++;
+    }
+    return count;
+  }
+
 }
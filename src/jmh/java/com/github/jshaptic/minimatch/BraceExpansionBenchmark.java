@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -18,6 +19,8 @@ public class BraceExpansionBenchmark {
   public static class Data {
 
     private List<String> cases;
+    // every case repeated as members of a set, {case,case}/{case,x}
+    private List<String> repeatedCases;
 
     @Setup(Level.Trial)
     public void doSetup() throws IOException {
@@ -28,6 +31,36 @@ public class BraceExpansionBenchmark {
           cases.add(reader.readLine());
         }
       }
+      repeatedCases = new ArrayList<>();
+      for (String c : cases) {
+        repeatedCases.add("{" + c + "," + c + "}/{" + c + ",x}");
+      }
+    }
+
+  }
+
+  @State(Scope.Benchmark)
+  public static class Nesting {
+
+    @Param({"10", "100", "1000"})
+    private int levels;
+    private String nestedSets;
+    private String listOfSets;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      StringBuilder nested = new StringBuilder();
+      StringBuilder list = new StringBuilder();
+      for (int i = 0; i < levels; i++) {
+        nested.append("{a").append(i).append(',');
+        list.append("{a,b}/");
+      }
+      nested.append('b');
+      for (int i = 0; i < levels; i++) {
+        nested.append('}');
+      }
+      nestedSets = nested.toString();
+      listOfSets = list.toString();
     }
 
   }
@@ -43,4 +76,26 @@ public class BraceExpansionBenchmark {
     }
   }
 
+  @Benchmark
+  public void expandRepeatedCases(Data data) {
+    for (String c : data.repeatedCases) {
+      BraceExpansion.expand(c);
+    }
+  }
+
+  @Benchmark
+  public long streamFirstExpansions() {
+    return BraceExpansion.stream("{1..100000}/{a..z}/{1..100000}").limit(1000).count();
+  }
+
+  @Benchmark
+  public String[] expandNestedSets(Nesting data) {
+    return BraceExpansion.expand(data.nestedSets);
+  }
+
+  @Benchmark
+  public long streamListOfSets(Nesting data) {
+    return BraceExpansion.stream(data.listOfSets).limit(1000).count();
+  }
+
 }
@@ -1,5 +1,6 @@
 package com.github.jshaptic.minimatch;
 
+import java.util.Arrays;
 import org.openjdk.jmh.annotations.Benchmark;
 
 public class MinimatchBenchmark {
@@ -7,6 +8,21 @@ public class MinimatchBenchmark {
   private static String pattern = "**/*.js";
   private static String[] files = BraceExpansion.expand("x/y/z/{1..1000}.js");
 
+  private static Minimatch globstars = new Minimatch("**/a/**/b/**/c/**/*.js");
+  private static String[] deepFiles =
+      BraceExpansion.expand("{x,a}/{a,b}/{y,b}/z/{c,d}/0/1/2/3/4/5/6/7/8/9/10/11/{a,b,c}/{d,e}/{1..10}.{js,ts}");
+
+  private static Minimatch braces = new Minimatch("{x,a}/{a,b,c,d}/**/*.{js,ts,jsx,tsx}");
+
+  private static Minimatch[] manyPatterns = Arrays.stream(BraceExpansion.expand("{src,lib,test}/**/*{1..100}.js"))
+      .map(p -> new Minimatch(p, Minimatch.MATCH_BASE)).toArray(Minimatch[]::new);
+  private static PatternSet manyPatternSet = new PatternSet();
+  static {
+    for (Minimatch mm : manyPatterns) {
+      manyPatternSet.add(mm);
+    }
+  }
+
   public static void main(String[] args) throws Exception {
     org.openjdk.jmh.Main.main(args);
   }
@@ -18,4 +34,72 @@ public class MinimatchBenchmark {
     }
   }
 
+  @Benchmark
+  public long matchGlobstars() {
+    long hits = 0;
+    for (int f = 0; f < deepFiles.length; f++) {
+      if (globstars.match(deepFiles[f])) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public long matchBraces() {
+    long hits = 0;
+    for (int f = 0; f < deepFiles.length; f++) {
+      if (braces.match(deepFiles[f])) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public long filterCompiledPerElement() {
+    return Arrays.stream(files).filter(p -> new Minimatch(pattern).match(p)).count();
+  }
+
+  @Benchmark
+  public long filter() {
+    return Arrays.stream(files).filter(Minimatch.filter(pattern)).count();
+  }
+
+  @Benchmark
+  public long matchManyPatterns() {
+    long hits = 0;
+    for (int f = 0; f < files.length; f++) {
+      for (int m = 0; m < manyPatterns.length; m++) {
+        if (manyPatterns[m].match(files[f])) {
+          hits++;
+        }
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public long matchManyPatternsTokenized() {
+    long hits = 0;
+    for (int f = 0; f < files.length; f++) {
+      PathTokens tokens = PathTokens.of(files[f]);
+      for (int m = 0; m < manyPatterns.length; m++) {
+        if (manyPatterns[m].match(tokens)) {
+          hits++;
+        }
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public long matchPatternSet() {
+    long hits = 0;
+    for (int f = 0; f < files.length; f++) {
+      hits += manyPatternSet.match(files[f]).cardinality();
+    }
+    return hits;
+  }
+
 }
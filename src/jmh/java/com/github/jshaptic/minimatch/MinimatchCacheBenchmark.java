@@ -0,0 +1,42 @@
+package com.github.jshaptic.minimatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+public class MinimatchCacheBenchmark {
+
+  private static String[] patterns = BraceExpansion.expand("{src,lib,test}/**/*{1..100}.js");
+  private static MinimatchCache cache = new MinimatchCache();
+
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int next;
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Minimatch hitsOneThread(Cursor cursor) {
+    return hit(cursor);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Minimatch hitsFourThreads(Cursor cursor) {
+    return hit(cursor);
+  }
+
+  // every pattern is compiled on the first pass, then all lookups are hits
+  private static Minimatch hit(Cursor cursor) {
+    cursor.next = (cursor.next + 1) % patterns.length;
+    return cache.get(patterns[cursor.next], Minimatch.NO_OPTIONS);
+  }
+
+}
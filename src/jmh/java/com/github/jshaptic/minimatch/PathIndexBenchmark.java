@@ -0,0 +1,83 @@
+package com.github.jshaptic.minimatch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+public class PathIndexBenchmark {
+
+  private static Minimatch selective = new Minimatch("src/module1{0,7}*/**/*.{js,ts}");
+  private static Minimatch broad = new Minimatch("**/test/**/*.js");
+
+  @State(Scope.Benchmark)
+  public static class Data {
+
+    @Param({"100000", "1000000"})
+    private int paths;
+    private List<String> list;
+    private TreeSet<String> sorted;
+    private PathIndex index;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      list = new ArrayList<>(paths);
+      for (int i = 0; list.size() < paths; i++) {
+        String dir = "src/module" + i % 1000 + "/" + (i % 7 == 0 ? "test" : "main") + "/package" + i % 37;
+        list.add(dir + "/File" + i + (i % 3 == 0 ? ".js" : ".ts"));
+      }
+      sorted = new TreeSet<>(list);
+      index = new PathIndex(list);
+
+      // footprint of the encoded index compared to the raw UTF-8 bytes of the paths
+      long raw = 0;
+      for (String path : list) {
+        raw += path.getBytes(StandardCharsets.UTF_8).length;
+      }
+      System.out.printf("%nPathIndex: %d paths, %d bytes encoded, %d bytes of UTF-8, %.1f bytes per path%n",
+          index.size(), index.getEncodedSize(), raw, (double) index.getEncodedSize() / index.size());
+    }
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+
+  @Benchmark
+  public PathIndex buildIndex(Data data) {
+    return new PathIndex(data.list);
+  }
+
+  @Benchmark
+  public long selectIndex(Data data) {
+    return data.index.select(selective).count();
+  }
+
+  @Benchmark
+  public long selectSortedSet(Data data) {
+    return selective.select(data.sorted).count();
+  }
+
+  @Benchmark
+  public long filterList(Data data) {
+    return data.list.stream().filter(selective::match).count();
+  }
+
+  @Benchmark
+  public long selectIndexBroad(Data data) {
+    return data.index.select(broad).count();
+  }
+
+  @Benchmark
+  public long filterListBroad(Data data) {
+    return data.list.stream().filter(broad::match).count();
+  }
+
+}
@@ -136,13 +136,33 @@ public class BalancedMatch {
    * @return an array with indexes.
    */
   public static RangePair range(String a, String b, String str) {
+    return range(a, b, str, 0, str.length());
+  }
+
+  /**
+   * <p>
+   * Works just like {@link #range(String, String, String)}, but only the part of {@code str} between {@code from} and
+   * {@code to} is searched, so no substrings have to be created when the same string is searched many times.
+   * </p>
+   * <p>
+   * Returned indexes are indexes in {@code str}, not in the searched part.
+   * </p>
+   *
+   * @param a first token of the matching pair.
+   * @param b second token of the matching pair.
+   * @param str string against which to execute matching.
+   * @param from index of the first searched character, inclusive.
+   * @param to index of the last searched character, exclusive.
+   * @return an array with indexes.
+   */
+  public static RangePair range(String a, String b, CharSequence str, int from, int to) {
     if (a == null || b == null) {
       return null;
     }
 
     RangePair result = null;
-    int ai = str.indexOf(a);
-    int bi = str.indexOf(b, ai + 1);
+    int ai = indexOf(str, a, from, from, to);
+    int bi = indexOf(str, b, ai + 1, from, to);
     int i = ai;
 
     if (ai >= 0 && bi >= 0) {
@@ -150,13 +170,13 @@ public class BalancedMatch {
         return new RangePair(ai, bi);
       }
       Deque<Integer> begs = new ArrayDeque<>();
-      int left = str.length();
+      int left = to;
       int right = -1;
 
       while (i >= 0 && result == null) {
         if (i == ai) {
           begs.push(i);
-          ai = str.indexOf(a, i + 1);
+          ai = indexOf(str, a, i + 1, from, to);
         } else if (begs.size() == 1) {
           result = new RangePair(begs.pop(), bi);
         } else {
@@ -166,7 +186,7 @@ public class BalancedMatch {
             right = bi;
           }
 
-          bi = str.indexOf(b, i + 1);
+          bi = indexOf(str, b, i + 1, from, to);
         }
 
         i = ai < bi && ai >= 0 ? ai : bi;
@@ -180,6 +200,33 @@ public class BalancedMatch {
     return result;
   }
 
+  // same as String.indexOf(s, fromIndex), but only characters between from and to are searched
+  private static int indexOf(CharSequence str, String s, int fromIndex, int from, int to) {
+    fromIndex = Math.max(fromIndex, from);
+    if (s.isEmpty()) {
+      return Math.min(fromIndex, to);
+    }
+    if (str instanceof String && to == str.length()) {
+      return ((String) str).indexOf(s, fromIndex);
+    }
+    char first = s.charAt(0);
+    for (int i = fromIndex, last = to - s.length(); i <= last; i++) {
+      if (str.charAt(i) == first && regionMatches(str, i, s)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean regionMatches(CharSequence str, int offset, String s) {
+    for (int k = 1; k < s.length(); k++) {
+      if (str.charAt(offset + k) != s.charAt(k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Matching pair with indexes.
    */
@@ -0,0 +1,351 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Finds all balanced pairs of {@code a} and {@code b} in a string, like {@code &#123;} and {@code &#125;}, in a single
+ * left-to-right pass. Unlike calling {@link BalancedMatch#balanced(String, String, String)} again on every
+ * {@link BalancedMatch#getPost() postscript}, the string is scanned only once and no substrings are created.
+ * </p>
+ * <p>
+ * Scanner is immutable and can be built once and shared between threads, every {@link #scan(CharSequence) scan} has
+ * its own state.
+ * </p>
+ * <p>
+ * Unmatched tokens are skipped same way as {@link BalancedMatch} does: {@code &#123;&#123;a&#125;} has only one pair
+ * {@code [1, 3]} and {@code &#123;a&#125;&#125;} has only one pair {@code [0, 2]}.
+ * </p>
+ * <p>
+ * PORT_INFO: tokens don't overlap, next token is searched after the end of the previous one, so for tokens like
+ * {@code &#123;&#123;} results can differ from {@link BalancedMatch}, which searches next token from the next
+ * character.
+ * </p>
+ */
+public final class BalancedScanner {
+
+  private final String a;
+  private final String b;
+  private final Pattern regexA;
+  private final Pattern regexB;
+  // when tokens are the same, every other token closes the pair
+  private final boolean same;
+
+  private BalancedScanner(String a, String b, Pattern regexA, Pattern regexB, boolean same) {
+    this.a = a;
+    this.b = b;
+    this.regexA = regexA;
+    this.regexB = regexB;
+    this.same = same;
+  }
+
+  /**
+   * Creates scanner for the pairs of string tokens.
+   *
+   * @param a first token of the matching pair.
+   * @param b second token of the matching pair.
+   * @return scanner for the pairs of {@code a} and {@code b}.
+   */
+  public static BalancedScanner of(String a, String b) {
+    Objects.requireNonNull(a);
+    Objects.requireNonNull(b);
+    if (a.isEmpty() || b.isEmpty()) {
+      throw new IllegalArgumentException("tokens must not be empty");
+    }
+    return new BalancedScanner(a, b, null, null, a.equals(b));
+  }
+
+  /**
+   * <p>
+   * Creates scanner for the pairs of tokens matched by regular expressions.
+   * </p>
+   * <p>
+   * PORT_INFO: {@link BalancedMatch#balanced(Pattern, Pattern, String)} uses only the first match of every regular
+   * expression as a token, here every match is a token.
+   * </p>
+   *
+   * @param a regular expression of the first token of the matching pair.
+   * @param b regular expression of the second token of the matching pair.
+   * @return scanner for the pairs of tokens matched by {@code a} and {@code b}.
+   */
+  public static BalancedScanner of(Pattern a, Pattern b) {
+    Objects.requireNonNull(a);
+    Objects.requireNonNull(b);
+    boolean same = a.pattern().equals(b.pattern()) && a.flags() == b.flags();
+    return new BalancedScanner(null, null, a, b, same);
+  }
+
+  /**
+   * Returns all balanced pairs in the string.
+   *
+   * @param str string to scan.
+   * @return iterator over all pairs, see {@link #scan(CharSequence, int, int)}.
+   */
+  public Iterator<Pair> scan(CharSequence str) {
+    Objects.requireNonNull(str);
+    return scan(str, 0, str.length());
+  }
+
+  /**
+   * <p>
+   * Returns all balanced pairs in the part of the string between {@code from} and {@code to}, both top-level and
+   * nested ones.
+   * </p>
+   * <p>
+   * Pairs are returned in the order they are closed, so nested pairs come before the pair, which encloses them. Pairs
+   * are found lazily, while the iterator is advanced.
+   * </p>
+   *
+   * @param str string to scan.
+   * @param from index of the first scanned character, inclusive.
+   * @param to index of the last scanned character, exclusive.
+   * @return iterator over all pairs, indexes of pairs are indexes in {@code str}.
+   */
+  public Iterator<Pair> scan(CharSequence str, int from, int to) {
+    Objects.requireNonNull(str);
+    if (from < 0 || to > str.length() || from > to) {
+      throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + str.length());
+    }
+    return new Scan(tokens(a, regexA, str, to), same ? null : tokens(b, regexB, str, to), from);
+  }
+
+  private static Tokens tokens(String token, Pattern regex, CharSequence str, int to) {
+    return token != null ? new StringTokens(token, str, to) : new RegexTokens(regex, str, to);
+  }
+
+  /**
+   * Balanced pair with indexes.
+   */
+  public static final class Pair {
+
+    private final int start;
+    private final int bodyStart;
+    private final int end;
+    private final int postStart;
+
+    private Pair(int start, int bodyStart, int end, int postStart) {
+      this.start = start;
+      this.bodyStart = bodyStart;
+      this.end = end;
+      this.postStart = postStart;
+    }
+
+    /**
+     * The index of the token a.
+     */
+    public int getStart() {
+      return start;
+    }
+
+    /**
+     * The index of the first character after the token a.
+     */
+    public int getBodyStart() {
+      return bodyStart;
+    }
+
+    /**
+     * The index of the matching token b.
+     */
+    public int getEnd() {
+      return end;
+    }
+
+    /**
+     * The index of the first character after the token b.
+     */
+    public int getPostStart() {
+      return postStart;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + "]";
+    }
+
+  }
+
+  private final class Scan implements Iterator<Pair> {
+
+    private final Tokens open;
+    private final Tokens close;
+    // found, but not consumed tokens, -1 if there are no more
+    private int nextOpen;
+    private int nextClose;
+    // start and end indexes of unclosed tokens a
+    private int[] stack = new int[16];
+    private int depth;
+    private Pair next;
+
+    private Scan(Tokens open, Tokens close, int from) {
+      this.open = open;
+      this.close = close;
+      this.nextOpen = open.find(from);
+      this.nextClose = close != null ? close.find(from) : -1;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && nextOpen >= 0) {
+        if (close == null) {
+          // same tokens
+          int start = nextOpen;
+          int end = open.end();
+          nextOpen = open.find(end);
+          if (depth == 0) {
+            push(start, end);
+          } else {
+            depth = 0;
+            next = new Pair(stack[0], stack[1], start, end);
+          }
+        } else if (nextClose < 0) {
+          // nothing can be closed anymore
+          nextOpen = -1;
+        } else if (depth == 0 && nextClose < nextOpen) {
+          // nothing to close, skip to the next token a
+          nextClose = close.find(nextOpen);
+        } else if (nextOpen <= nextClose) {
+          int end = open.end();
+          push(nextOpen, end);
+          nextOpen = open.find(end);
+          if (nextClose < end) {
+            nextClose = close.find(end);
+          }
+        } else {
+          int start = nextClose;
+          int end = close.end();
+          nextClose = close.find(end);
+          if (nextOpen < end) {
+            nextOpen = open.find(end);
+          }
+          if (depth > 0) {
+            depth--;
+            next = new Pair(stack[depth * 2], stack[depth * 2 + 1], start, end);
+          }
+        }
+      }
+      // pairs closed by the remaining tokens b
+      while (next == null && depth > 0 && nextClose >= 0) {
+        int start = nextClose;
+        int end = close.end();
+        nextClose = close.find(end);
+        depth--;
+        next = new Pair(stack[depth * 2], stack[depth * 2 + 1], start, end);
+      }
+      return next != null;
+    }
+
+    @Override
+    public Pair next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Pair result = next;
+      next = null;
+      return result;
+    }
+
+    private void push(int start, int end) {
+      if (depth * 2 == stack.length) {
+        stack = Arrays.copyOf(stack, stack.length * 2);
+      }
+      stack[depth * 2] = start;
+      stack[depth * 2 + 1] = end;
+      depth++;
+    }
+
+  }
+
+  // finds tokens one by one, from left to right
+  private abstract static class Tokens {
+
+    // index of the next token starting at or after from, -1 if there is none
+    abstract int find(int from);
+
+    // end index of the last found token
+    abstract int end();
+
+  }
+
+  private static final class StringTokens extends Tokens {
+
+    private final String token;
+    private final CharSequence str;
+    private final int to;
+    private int end;
+
+    private StringTokens(String token, CharSequence str, int to) {
+      this.token = token;
+      this.str = str;
+      this.to = to;
+    }
+
+    @Override
+    int find(int from) {
+      char first = token.charAt(0);
+      for (int i = from, last = to - token.length(); i <= last; i++) {
+        if (str.charAt(i) == first && regionMatches(i)) {
+          end = i + token.length();
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private boolean regionMatches(int offset) {
+      for (int k = 1; k < token.length(); k++) {
+        if (str.charAt(offset + k) != token.charAt(k)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    int end() {
+      return end;
+    }
+
+  }
+
+  private static final class RegexTokens extends Tokens {
+
+    private final Matcher matcher;
+    private final int to;
+
+    private RegexTokens(Pattern regex, CharSequence str, int to) {
+      this.matcher = regex.matcher(str);
+      this.to = to;
+    }
+
+    @Override
+    int find(int from) {
+      while (from <= to) {
+        matcher.region(from, to);
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        if (!matcher.find()) {
+          return -1;
+        }
+        if (matcher.end() > matcher.start()) {
+          return matcher.start();
+        }
+        // empty tokens can't be paired, skip them
+        from = matcher.start() + 1;
+      }
+      return -1;
+    }
+
+    @Override
+    int end() {
+      return matcher.end();
+    }
+
+  }
+
+}
@@ -1,13 +1,16 @@
 package com.github.jshaptic.minimatch;
 
-import static java.util.stream.Collectors.toList;
-
+import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.function.BiPredicate;
+import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -17,14 +20,14 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class BraceExpansion {
 
-  private static final String ESC_SLASH = "\0SLASH" + Math.random() + "\0";
-  private static final String ESC_OPEN = "\0OPEN" + Math.random() + "\0";
-  private static final String ESC_CLOSE = "\0CLOSE" + Math.random() + "\0";
-  private static final String ESC_COMMA = "\0COMMA" + Math.random() + "\0";
-  private static final String ESC_PERIOD = "\0PERIOD" + Math.random() + "\0";
+  // characters, which can be escaped with a backslash
+  private static final String ESCAPABLE = "\\{},.";
+
+  static final Pattern numericSequence = Pattern.compile("^-?\\d+\\.\\.-?\\d+(?:\\.\\.-?\\d+)?$");
+  static final Pattern alphaSequence = Pattern.compile("^[a-zA-Z]\\.\\.[a-zA-Z](?:\\.\\.-?\\d+)?$");
 
-  private static final Pattern numericSequence = Pattern.compile("^-?\\d+\\.\\.-?\\d+(?:\\.\\.-?\\d+)?$");
-  private static final Pattern alphaSequence = Pattern.compile("^[a-zA-Z]\\.\\.[a-zA-Z](?:\\.\\.-?\\d+)?$");
+  // members of the sets like {{a,b}..c}, which are created to count their expansions
+  private static final long MAX_COUNTED_MEMBERS = 100_000;
 
   private BraceExpansion() {}
 
@@ -36,73 +39,131 @@ public class BraceExpansion {
     }
   }
 
-  private static String escapeBraces(String str) {
-    return StringUtils.replaceEach(str, new String[] {"\\\\", "\\{", "\\}", "\\,", "\\."},
-        new String[] {ESC_SLASH, ESC_OPEN, ESC_CLOSE, ESC_COMMA, ESC_PERIOD});
+  private static boolean isPadded(String el) {
+    return (el.length() >= 3 && el.startsWith("-0") && Character.isDigit(el.charAt(2)))
+        || (el.length() >= 2 && el.startsWith("0") && Character.isDigit(el.charAt(1)));
   }
 
-  private static String unescapeBraces(String str) {
-    return StringUtils.replaceEach(str, new String[] {ESC_SLASH, ESC_OPEN, ESC_CLOSE, ESC_COMMA, ESC_PERIOD},
-        new String[] {"\\", "{", "}", ",", "."});
+  /**
+   * Return an array of all possible and valid expansions of {@code str}. If none are found, {@code [str]} is returned.
+   *
+   * @param str string to expand.
+   * @return array of valid expansions of {@code str}, if none are found, {@code [str]} is returned.
+   */
+  public static String[] expand(String str) {
+    return stream(str).toArray(String[]::new);
   }
 
-  // Basically just str.split(","), but handling cases
-  // where we have nested braced sections, which should be
-  // treated as individual members, like {a,{b,c},d}
-  private static String[] parseCommaParts(String str) {
-    if (str == null || str.isEmpty()) {
-      return new String[] {""};
-    }
-
-    BalancedMatch m = BalancedMatch.balanced("{", "}", str);
-
-    if (m == null) {
-      return str.split(",", -1);
-    }
-
-    String pre = m.getPre();
-    String body = m.getBody();
-    String post = m.getPost();
-    String[] p = pre.split(",", -1);
-
-    p[p.length - 1] += "{" + body + "}";
-    String[] postParts = parseCommaParts(post);
-    if (post.length() > 0 && postParts.length > 0) {
-      p[p.length - 1] += postParts[0];
-      p = Arrays.copyOf(p, p.length + postParts.length - 1);
-      System.arraycopy(postParts, 1, p, p.length - (postParts.length - 1), postParts.length - 1);
-    }
-
-    return p;
+  /**
+   * Same as {@link #expand(String)}, but fails before any expansion is created, if there are more than {@code limit}
+   * of them.
+   *
+   * @param str string to expand.
+   * @param limit maximum allowed number of expansions.
+   * @return array of valid expansions of {@code str}, if none are found, {@code [str]} is returned.
+   * @throws BraceExpansionLimitException if {@code str} has more than {@code limit} expansions.
+   */
+  public static String[] expand(String str, long limit) {
+    return tree(str, limit).stream().toArray(String[]::new);
   }
 
-  private static String embrace(String str) {
-    return "{" + str + "}";
+  /**
+   * <p>
+   * Returns exact number of expansions of {@code str}, i.e. length of the {@link #expand(String)} result, without
+   * creating them.
+   * </p>
+   * <p>
+   * Sequence with zero increment, e.g. {@code &#123;1..3..0&#125;}, never ends, so it can't be counted. Set with a
+   * single member, which has expansions with sets or sequences, e.g. {@code &#123;&#123;a,b&#125;..c&#125;}, is
+   * expanded again, so its members are created to count them, there can't be more than 100000 of them.
+   * </p>
+   *
+   * @param str string to expand.
+   * @return number of valid expansions of {@code str}.
+   * @throws ArithmeticException if {@code str} has infinitely many expansions.
+   * @throws BraceExpansionLimitException if {@code str} has a set, which is expanded again, with more than 100000
+   *         members.
+   */
+  public static BigInteger count(String str) {
+    BigInteger result = tree(str, Long.MAX_VALUE, MAX_COUNTED_MEMBERS).count();
+    if (result == null) {
+      throw new ArithmeticException("brace expansion of pattern " + str + " is infinite");
+    }
+    return result;
   }
 
-  private static boolean isPadded(String el) {
-    return (el.length() >= 3 && el.startsWith("-0") && Character.isDigit(el.charAt(2)))
-        || (el.length() >= 2 && el.startsWith("0") && Character.isDigit(el.charAt(1)));
+  private static void checkLimit(String str, ExpansionTree tree, long limit) {
+    // saturated size is cheap and exact as long as it's not saturated
+    if (tree.size() <= limit) {
+      return;
+    }
+    BigInteger count = tree.count();
+    if (count == null || count.compareTo(BigInteger.valueOf(limit)) > 0) {
+      throw new BraceExpansionLimitException(str, limit, count);
+    }
   }
 
-  private static boolean lte(long i, long y) {
-    return i <= y;
+  /**
+   * <p>
+   * Returns all possible and valid expansions of {@code str} as a lazy stream, in the same order as
+   * {@link #expand(String)} returns them.
+   * </p>
+   * <p>
+   * Expansions are built one by one, when they are requested, so memory used by the stream depends only on the length
+   * of {@code str}, not on the number of expansions. Stream can be split into halves of equal size, so it also works
+   * well in parallel.
+   * </p>
+   *
+   * @param str string to expand.
+   * @return stream of valid expansions of {@code str}, if none are found, stream of {@code str} is returned.
+   */
+  public static Stream<String> stream(String str) {
+    return tree(str).stream();
   }
 
-  private static boolean gte(long i, long y) {
-    return i >= y;
+  /**
+   * Returns all possible and valid expansions of {@code str} as a lazy iterator, in the same order as
+   * {@link #expand(String)} returns them.
+   *
+   * @param str string to expand.
+   * @return iterator over valid expansions of {@code str}, if none are found, iterator over {@code str} is returned.
+   */
+  public static Iterator<String> iterator(String str) {
+    return tree(str).iterator();
   }
 
   /**
-   * Return an array of all possible and valid expansions of {@code str}. If none are found, {@code [str]} is returned.
+   * <p>
+   * Returns all possible and valid expansions of {@code str} as a tree of shared fragments, which builds expansions on
+   * demand, in the same order as {@link #expand(String)} returns them.
+   * </p>
+   * <p>
+   * Unlike the array of all expansions, memory used by the tree depends only on the length of {@code str}, e.g.
+   * {@code very/long/prefix/&#123;a..z&#125;/&#123;1..50&#125;/file.txt} is kept as a few fragments instead of 1300
+   * strings, which repeat the same prefix and suffix. Tree can be iterated or streamed many times.
+   * </p>
    *
    * @param str string to expand.
-   * @return array of valid expansions of {@code str}, if none are found, {@code [str]} is returned.
+   * @return tree of valid expansions of {@code str}, if none are found, tree of {@code str} is returned.
    */
-  public static String[] expand(String str) {
+  public static ExpansionTree tree(String str) {
+    return tree(str, Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@link #tree(String)}, but fails if there are more than {@code limit} expansions. Members of the sets like
+   * {@code &#123;&#123;a,b&#125;.c&#125;}, which are expanded again, are created while the tree is built, so the limit
+   * is checked before they are created.
+   */
+  static ExpansionTree tree(String str, long limit) {
+    return tree(str, limit, limit);
+  }
+
+  private static ExpansionTree tree(String str, long limit, long maxMembers) {
     if (str == null || str.isEmpty()) {
-      return new String[0];
+      return ExpansionTree.EMPTY;
     }
+    String pattern = str;
 
     // I don't know why Bash 4.3 does this, but it does.
     // Anything starting with {} will have the first two bytes preserved
@@ -114,108 +175,498 @@ public class BraceExpansion {
       str = "\\{\\}" + str.substring(2);
     }
 
-    return Arrays.stream(expand(escapeBraces(str), true)).map(BraceExpansion::unescapeBraces).toArray(String[]::new);
+    ExpansionTree tree = new ExpansionTree(expand(Text.parse(str), true, new Context(pattern, maxMembers)));
+    checkLimit(pattern, tree, limit);
+    return tree;
+  }
+
+  // PORT_INFO: original implementation returns array of all expansions, here the tree is returned, which builds
+  // expansions on demand, but in the same order. Original implementation is recursive, here sets are expanded with an
+  // explicit stack, so deeply nested sets and long lists of sets don't overflow the stack.
+  private static ExpansionTree.Node expand(Text str, boolean isTop, Context context) {
+    Expansion root = new Expansion(str, 0, str.length(), isTop, context, null);
+    Deque<Expansion> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      Expansion current = stack.peek();
+      Expansion child = current.step();
+      if (child != null) {
+        stack.push(child);
+      } else {
+        stack.pop();
+        if (!stack.isEmpty()) {
+          root.context.memo.put(current.key, current.result);
+          stack.peek().accept(current.result);
+        }
+      }
+    }
+    return root.result;
   }
 
-  private static String[] expand(String str, boolean isTop) {
-    BalancedMatch m = BalancedMatch.balanced("{", "}", str);
-    if (m == null || m.getPre().endsWith("$")) {
-      return new String[] {str};
+  /**
+   * <p>
+   * Expansion of the part of the text between {@code from} and {@code to}.
+   * </p>
+   * <p>
+   * Sets are expanded from left to right: prefix of the first set, the set, then the postscript, which is handled
+   * same way, until there are no sets left. Every set and every prefix becomes a factor of the resulting product.
+   * Members of the sets are expanded as child expansions, which are returned by {@link #step()}, and their results are
+   * passed back with {@link #accept(ExpansionTree.Node)}.
+   * </p>
+   * <p>
+   * Members, which are the same, like {@code &#123;b,c&#125;x} in
+   * {@code &#123;a,&#123;b,c&#125;x&#125;&#123;d,&#123;b,c&#125;x&#125;}, are expanded only once, their expansions are
+   * shared by all expansions of the same string. Nodes are immutable, so the same node can be used in many places of
+   * the tree.
+   * </p>
+   */
+  private static final class Expansion {
+
+    private static final int SCAN = 0;
+    private static final int OPTIONS = 1;
+    private static final int EMBRACE = 2;
+
+    private final Context context;
+    // null for the top-level expansion
+    private final Member key;
+    private Text str;
+    private int from;
+    private int to;
+    private boolean isTop;
+    private boolean first = true;
+    private boolean skipEmpty;
+    private final List<ExpansionTree.Node> factors = new ArrayList<>();
+
+    // set, which is being expanded
+    private int state = SCAN;
+    private int open;
+    private int close;
+    private int[] bounds;
+    private Text[] embraced;
+    private ExpansionTree.Node[] members;
+    private int received;
+
+    private ExpansionTree.Node result;
+
+    private Expansion(Text str, int from, int to, boolean isTop, Context context, Member key) {
+      this.str = str;
+      this.from = from;
+      this.to = to;
+      this.isTop = isTop;
+      this.context = context;
+      this.key = key;
+    }
+
+    private void accept(ExpansionTree.Node member) {
+      members[received++] = member;
     }
 
-    boolean isNumericSequence = numericSequence.matcher(m.getBody()).find();
-    boolean isAlphaSequence = alphaSequence.matcher(m.getBody()).find();
-    boolean isSequence = isNumericSequence || isAlphaSequence;
-    boolean isOptions = m.getBody().indexOf(',') >= 0;
-    if (!isSequence && !isOptions) {
-      // {a},b}
-      if (m.getPost().indexOf(',') >= 0 && m.getPost().indexOf('}') >= 0
-          && m.getPost().indexOf(',') < m.getPost().indexOf('}')) {
-        str = m.getPre() + "{" + m.getBody() + ESC_CLOSE + m.getPost();
-        return expand(str, false);
+    // returns child expansion, which has to be done first, or null when result is ready
+    private Expansion step() {
+      while (true) {
+        if (state != SCAN) {
+          if (received < members.length) {
+            Expansion member = embraced != null
+                ? member(embraced[received], 0, embraced[received].length())
+                : member(str, bounds[received * 2], bounds[received * 2 + 1]);
+            if (member != null) {
+              return member;
+            }
+            continue;
+          }
+          if (state == EMBRACE) {
+            // x{{a,b}}y ==> x{a}y x{b}y
+            ExpansionTree.Node inner = members[0];
+            if (!inner.mayContain("{},") && !inner.mayRepeat('.')) {
+              // wrapped expansions have no sets and no sequences, which need two periods in a row, so every one of
+              // them is expanded to itself
+              addSet(new ExpansionTree.Braced(inner), inner.size != 1 && isTop);
+              continue;
+            }
+            embrace(inner);
+            if (embraced.length == 1) {
+              Text el = embraced[0];
+              addSet(el.literal(0, el.length()), false);
+              continue;
+            }
+            state = OPTIONS;
+            members = new ExpansionTree.Node[embraced.length];
+            received = 0;
+            continue;
+          }
+          addSet(new ExpansionTree.Alternatives(members), isTop);
+          continue;
+        }
+
+        open = str.firstPair(from, to);
+        if (open < 0 || (open > from && str.mask.charAt(open - 1) == '$')) {
+          return finish();
+        }
+        close = str.partner(open);
+
+        boolean isNumericSequence = numericSequence.matcher(str.mask).region(open + 1, close).lookingAt();
+        boolean isAlphaSequence = alphaSequence.matcher(str.mask).region(open + 1, close).lookingAt();
+        boolean isSequence = isNumericSequence || isAlphaSequence;
+        boolean isOptions = str.nextComma(open + 1) < close;
+        if (!isSequence && !isOptions) {
+          // {a},b}
+          int comma = str.nextComma(close + 1);
+          int brace = str.indexOf('}', close + 1, to);
+          if (comma < to && brace >= 0 && comma < brace) {
+            // closing brace is escaped
+            str = str.escape(from, to, close);
+            from = 0;
+            to = str.length();
+            if (first) {
+              isTop = false;
+            }
+            continue;
+          }
+          return finish();
+        }
+
+        if (isSequence) {
+          // sequence is never escaped, so text and mask are the same
+          String[] n = StringUtils.split(str.text.substring(open + 1, close), "..");
+          long x = numeric(n[0]);
+          long y = numeric(n[1]);
+          int width = Math.max(n[0].length(), n[1].length());
+          long incr = n.length == 3 ? Math.abs(numeric(n[2])) : 1;
+          boolean pad = Arrays.stream(n).anyMatch(BraceExpansion::isPadded);
+
+          addSet(new ExpansionTree.Sequence(isAlphaSequence, x, y, incr, pad, width), false);
+          continue;
+        }
+
+        bounds = str.commaParts(open + 1, close);
+        embraced = null;
+        received = 0;
+        if (bounds.length == 2) {
+          state = EMBRACE;
+          members = new ExpansionTree.Node[1];
+        } else {
+          state = OPTIONS;
+          members = new ExpansionTree.Node[bounds.length / 2];
+        }
+      }
+    }
+
+    // returns expansion of the member, or null if it's already accepted
+    private Expansion member(Text text, int start, int end) {
+      if (text.firstPair(start, end) < 0) {
+        // nothing to expand
+        accept(text.literal(start, end));
+        return null;
+      }
+      Member member = new Member(text, start, end);
+      ExpansionTree.Node expanded = context.memo.get(member);
+      if (expanded != null) {
+        accept(expanded);
+        return null;
+      }
+      return new Expansion(text, start, end, false, context, member);
+    }
+
+    // expansions of the only member, each one wrapped in braces
+    private void embrace(ExpansionTree.Node inner) {
+      if (inner.size > context.maxMembers) {
+        // every wrapped expansion is expanded to at least one string, which is never empty
+        throw new BraceExpansionLimitException(context.pattern, context.maxMembers, null);
+      }
+      embraced = new Text[Math.toIntExact(inner.size)];
+      for (int i = 0; i < embraced.length; i++) {
+        StringBuilder text = new StringBuilder("{");
+        StringBuilder mask = new StringBuilder("{");
+        inner.append(i, text, false);
+        inner.append(i, mask, true);
+        embraced[i] = new Text(text.append('}').toString(), mask.append('}').toString());
+      }
+    }
+
+    // adds prefix and the set, then continues with the postscript
+    private void addSet(ExpansionTree.Node set, boolean filter) {
+      if (open > from) {
+        factors.add(str.literal(from, open));
+      }
+      factors.add(set);
+      if (first) {
+        skipEmpty = filter;
+        first = false;
+      }
+      from = close + 1;
+      state = SCAN;
+      embraced = null;
+      members = null;
+    }
+
+    private Expansion finish() {
+      if (from < to || factors.isEmpty()) {
+        factors.add(str.literal(from, to));
+      }
+      if (factors.size() == 1 && !skipEmpty) {
+        result = factors.get(0);
+      } else {
+        result = new ExpansionTree.Product(factors.toArray(new ExpansionTree.Node[0]), skipEmpty);
+      }
+      return null;
+    }
+
+  }
+
+  /**
+   * State shared by all expansions of the same string.
+   */
+  private static final class Context {
+
+    private final String pattern;
+    // maximum number of members, which are expanded again
+    private final long maxMembers;
+    // expanded members of all expansions of the same string
+    private final Map<Member, ExpansionTree.Node> memo = new HashMap<>();
+
+    private Context(String pattern, long maxMembers) {
+      this.pattern = pattern;
+      this.maxMembers = maxMembers;
+    }
+
+  }
+
+  /**
+   * Part of the text between {@code from} and {@code to}. Members are equal, if they have the same characters and the
+   * same characters are escaped, even if they are parts of different texts.
+   */
+  private static final class Member {
+
+    private final Text str;
+    private final int from;
+    private final int to;
+    private final int hash;
+
+    private Member(Text str, int from, int to) {
+      this.str = str;
+      this.from = from;
+      this.to = to;
+      int h = 0;
+      for (int i = from; i < to; i++) {
+        h = 31 * h + str.mask.charAt(i);
       }
-      return new String[] {str};
+      this.hash = h;
     }
 
-    String[] n;
-    if (isSequence) {
-      n = StringUtils.split(m.getBody(), "..");
-    } else {
-      n = parseCommaParts(m.getBody());
-      if (n.length == 1) {
-        // x{{a,b}}y ==> x{a}y x{b}y
-        n = Arrays.stream(expand(n[0], false)).map(BraceExpansion::embrace).toArray(String[]::new);
-        if (n.length == 1) {
-          String n0 = n[0];
-          String[] post = !m.getPost().isEmpty() ? expand(m.getPost(), false) : new String[] {""};
-          return Arrays.stream(post).map(p -> m.getPre() + n0 + p).toArray(String[]::new);
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Member)) {
+        return false;
+      }
+      Member other = (Member) obj;
+      int length = to - from;
+      return hash == other.hash && length == other.to - other.from
+          && str.mask.regionMatches(from, other.str.mask, other.from, length)
+          && str.text.regionMatches(from, other.str.text, other.from, length);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+  }
+
+  /**
+   * <p>
+   * String with escaped characters. Backslashes of escaped characters are removed from the text, and these characters
+   * are replaced with {@code \0} in the mask, so they are never treated as braces, commas or periods. Mask is used to
+   * find sets and sequences, text is used for the expanded strings.
+   * </p>
+   * <p>
+   * Braces are paired once for the whole string, same way as {@link BalancedMatch} pairs them.
+   * </p>
+   */
+  private static final class Text {
+
+    private final String text;
+    private final String mask;
+    // index of the paired brace, -1 if brace is not paired
+    private int[] partners;
+    // index of the first paired opening brace and of the first comma at or after the given index
+    private int[] pairs;
+    private int[] commas;
+
+    private Text(String text, String mask) {
+      this.text = text;
+      this.mask = mask;
+    }
+
+    // backslashes are paired from left to right, so \\{ is an escaped backslash and a brace
+    private static Text parse(String str) {
+      int i = str.indexOf('\\');
+      if (i < 0) {
+        return new Text(str, str);
+      }
+      StringBuilder text = new StringBuilder(str.length());
+      StringBuilder mask = new StringBuilder(str.length());
+      text.append(str, 0, i);
+      mask.append(str, 0, i);
+      for (; i < str.length(); i++) {
+        char c = str.charAt(i);
+        if (c == '\\' && i + 1 < str.length() && ESCAPABLE.indexOf(str.charAt(i + 1)) >= 0) {
+          text.append(str.charAt(++i));
+          mask.append('\0');
+        } else {
+          text.append(c);
+          mask.append(c);
         }
       }
+      return new Text(text.toString(), mask.toString());
     }
 
-    // at this point, n is the parts, and we know it's not a comma set
-    // with a single entry.
+    private int length() {
+      return text.length();
+    }
 
-    // no need to expand pre, since it is guaranteed to be free of brace-sets
-    String pre = m.getPre();
-    String[] post = !m.getPost().isEmpty() ? expand(m.getPost(), false) : new String[] {""};
+    private ExpansionTree.Literal literal(int from, int to) {
+      return new ExpansionTree.Literal(text, mask, from, to);
+    }
 
-    List<String> nn;
+    private void index() {
+      int length = mask.length();
+      partners = new int[length];
+      Arrays.fill(partners, -1);
+      int[] opened = new int[16];
+      int depth = 0;
+      for (int i = 0; i < length; i++) {
+        char c = mask.charAt(i);
+        if (c == '{') {
+          if (depth == opened.length) {
+            opened = Arrays.copyOf(opened, depth * 2);
+          }
+          opened[depth++] = i;
+        } else if (c == '}' && depth > 0) {
+          int o = opened[--depth];
+          partners[o] = i;
+          partners[i] = o;
+        }
+      }
 
-    if (isSequence) {
-      long x = numeric(n[0]);
-      long y = numeric(n[1]);
-      int width = Math.max(n[0].length(), n[1].length());
-      long incr = n.length == 3 ? Math.abs(numeric(n[2])) : 1;
-      BiPredicate<Long, Long> test = BraceExpansion::lte;
-      boolean reverse = y < x;
-      if (reverse) {
-        incr *= -1;
-        test = BraceExpansion::gte;
+      pairs = new int[length + 1];
+      commas = new int[length + 1];
+      pairs[length] = length;
+      commas[length] = length;
+      for (int i = length - 1; i >= 0; i--) {
+        char c = mask.charAt(i);
+        pairs[i] = c == '{' && partners[i] >= 0 ? i : pairs[i + 1];
+        commas[i] = c == ',' ? i : commas[i + 1];
       }
-      boolean pad = Arrays.stream(n).anyMatch(BraceExpansion::isPadded);
+    }
 
-      nn = new ArrayList<>();
+    // PORT_INFO: same as BalancedMatch.range("{", "}", str), but braces are paired only once. Inside the ranges, which
+    // are expanded, braces are always paired same way as in the whole string, since these ranges are either the whole
+    // string, or bodies of pairs, or parts of them, which follow the pairs.
+    private int firstPair(int from, int to) {
+      if (partners == null) {
+        index();
+      }
+      int i = pairs[from];
+      return i < to ? i : -1;
+    }
+
+    private int partner(int i) {
+      return partners[i];
+    }
 
-      for (long i = x; test.test(i, y); i += incr) {
-        String c = "";
-        if (isAlphaSequence) {
-          c = Character.toString((char) i);
-          if (c.equals("\\")) {
-            c = "";
+    private int nextComma(int from) {
+      if (partners == null) {
+        index();
+      }
+      return commas[from];
+    }
+
+    private int indexOf(char c, int from, int to) {
+      for (int i = from; i < to; i++) {
+        if (mask.charAt(i) == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    // Basically just str.split(","), but handling cases
+    // where we have nested braced sections, which should be
+    // treated as individual members, like {a,{b,c},d}
+    // PORT_INFO: start and end offsets of every member are returned. Body of a pair is passed, so all braces in it are
+    // paired. Member, which is a set itself, like {b,c} above, is replaced with its members, since it expands to
+    // exactly the same strings, so {a,{a,{a,b}}} is expanded as {a,a,a,b} without nesting.
+    private int[] commaParts(int from, int to) {
+      if (nextMember(from, to) == to) {
+        // single member is never replaced, x{{a,b}}y ==> x{a}y x{b}y
+        return new int[] {from, to};
+      }
+      int[] result = new int[8];
+      int k = 0;
+      // ranges, which are being split: next member start and end of the range
+      int[] stack = new int[8];
+      int depth = 0;
+      stack[depth++] = from;
+      stack[depth++] = to;
+      while (depth > 0) {
+        int start = stack[depth - 2];
+        int end = stack[depth - 1];
+        int i = nextMember(start, end);
+        if (i < end) {
+          stack[depth - 2] = i + 1;
+        } else {
+          depth -= 2;
+        }
+
+        if (isSet(start, i)) {
+          if (depth + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
           }
+          stack[depth++] = start + 1;
+          stack[depth++] = i - 1;
         } else {
-          c = Long.toString(i);
-          if (pad) {
-            int need = width - c.length();
-            if (need > 0) {
-              String z = String.join("", Collections.nCopies(need, "0"));
-              if (i < 0) {
-                c = "-" + z + c.substring(1);
-              } else {
-                c = z + c;
-              }
-            }
+          if (k + 2 > result.length) {
+            result = Arrays.copyOf(result, result.length * 2);
           }
+          result[k++] = start;
+          result[k++] = i;
         }
-        nn.add(c);
       }
-    } else {
-      nn = Arrays.stream(n).flatMap(el -> Arrays.stream(expand(el, false))).collect(toList());
+      return k == result.length ? result : Arrays.copyOf(result, k);
     }
 
-    List<String> expansions = new ArrayList<>();
-
-    for (int j = 0; j < nn.size(); j++) {
-      for (int k = 0; k < post.length; k++) {
-        String expansion = pre + nn.get(j) + post[k];
-        if (!isTop || isSequence || !expansion.isEmpty()) {
-          expansions.add(expansion);
+    // index of the comma after the member, which starts at the given index, or end of the range
+    private int nextMember(int from, int to) {
+      int i = from;
+      while (i < to) {
+        char c = mask.charAt(i);
+        if (c == '{' && partners[i] >= 0) {
+          i = partners[i] + 1;
+        } else if (c == ',') {
+          return i;
+        } else {
+          i++;
         }
       }
+      return to;
+    }
+
+    // range is a set with more than one member
+    private boolean isSet(int from, int to) {
+      return to - from >= 2 && mask.charAt(from) == '{' && partners[from] == to - 1
+          && nextMember(from + 1, to - 1) < to - 1;
+    }
+
+    // part of the text between from and to, character at the given index is escaped
+    private Text escape(int from, int to, int index) {
+      char[] escaped = mask.substring(from, to).toCharArray();
+      escaped[index - from] = '\0';
+      return new Text(text.substring(from, to), new String(escaped));
     }
 
-    return expansions.toArray(new String[] {});
   }
 
 }
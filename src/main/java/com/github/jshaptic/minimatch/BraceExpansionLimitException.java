@@ -0,0 +1,55 @@
+package com.github.jshaptic.minimatch;
+
+import java.math.BigInteger;
+
+/**
+ * Thrown when brace expansion of a pattern would produce more strings than allowed, see
+ * {@link BraceExpansion#expand(String, long)} and {@link Minimatch#Minimatch(String, int, long)}.
+ */
+public class BraceExpansionLimitException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String pattern;
+  private final long limit;
+  private final BigInteger count;
+
+  /**
+   * Creates exception for the pattern, which is expanded to {@code count} strings.
+   *
+   * @param pattern pattern, which was expanded.
+   * @param limit maximum allowed number of expansions.
+   * @param count number of expansions, {@code null} if there are infinitely many, or they can't be counted without
+   *        expanding the pattern.
+   */
+  public BraceExpansionLimitException(String pattern, long limit, BigInteger count) {
+    super("brace expansion of pattern " + pattern + " produces " + (count == null ? "more than " + limit : count)
+        + " strings, limit is " + limit);
+    this.pattern = pattern;
+    this.limit = limit;
+    this.count = count;
+  }
+
+  /**
+   * Pattern, which was expanded.
+   */
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+   * Maximum allowed number of expansions.
+   */
+  public long getLimit() {
+    return limit;
+  }
+
+  /**
+   * Number of expansions of the pattern, {@code null} if there are infinitely many, or they can't be counted without
+   * expanding the pattern.
+   */
+  public BigInteger getCount() {
+    return count;
+  }
+
+}
@@ -0,0 +1,826 @@
+package com.github.jshaptic.minimatch;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Brace expansion of a single string, kept as a tree instead of a list of all expanded strings.
+ * </p>
+ * <p>
+ * Every node knows how many strings it expands to and can build a string by its index, so expansions are produced on
+ * demand in the same order as {@link BraceExpansion#expand(String)} returns them. Fragments of the pattern, which are
+ * shared by many expansions, like prefix {@code src/} and suffix {@code .java} of
+ * {@code src/&#123;a..z&#125;/&#123;1..50&#125;.java}, are kept only once, so memory is proportional to the pattern,
+ * not to the number of expansions and their total length.
+ * </p>
+ * <p>
+ * Tree is immutable and can be shared between threads, every iterator and stream has its own state.
+ * </p>
+ *
+ * @see BraceExpansion#tree(String)
+ */
+public final class ExpansionTree implements Iterable<String> {
+
+  static final ExpansionTree EMPTY = new ExpansionTree(new Alternatives(new Node[0]));
+
+  private final Node root;
+  // bash drops empty expansions of the top-level set
+  private final boolean skipEmpty;
+
+  ExpansionTree(Node root) {
+    this.root = root;
+    this.skipEmpty = root.skipsEmpty();
+  }
+
+  /**
+   * Number of expansions, including empty ones, which are skipped. It's {@link Long#MAX_VALUE} if there are more.
+   */
+  long size() {
+    return root.size;
+  }
+
+  /**
+   * Returns exact number of expansions, without creating them.
+   *
+   * @return number of expansions, or {@code null} if there are infinitely many.
+   */
+  public BigInteger count() {
+    BigInteger result = root.count();
+    if (result != null && skipEmpty) {
+      result = result.subtract(root.empties());
+    }
+    return result;
+  }
+
+  /**
+   * Builds expansion by its index, empty expansions are not skipped.
+   */
+  String get(long index) {
+    StringBuilder result = new StringBuilder();
+    root.append(index, result, false);
+    return result.toString();
+  }
+
+  /**
+   * Returns iterator, which builds expansions one by one, when they are requested.
+   *
+   * @return iterator over all expansions.
+   */
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+
+      private final Slice slice = new Slice(0, size());
+      private String next;
+
+      @Override
+      public boolean hasNext() {
+        return next != null || slice.tryAdvance(s -> next = s);
+      }
+
+      @Override
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        String result = next;
+        next = null;
+        return result;
+      }
+
+    };
+  }
+
+  /**
+   * Returns spliterator over all expansions, which can be split into halves of equal size.
+   *
+   * @return spliterator over all expansions.
+   */
+  @Override
+  public Spliterator<String> spliterator() {
+    return new Slice(0, size());
+  }
+
+  /**
+   * Returns lazy stream of all expansions.
+   *
+   * @return stream of all expansions.
+   */
+  public Stream<String> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Same as {@link #distinct(int)}, without a limit on remembered expansions.
+   *
+   * @return stream of distinct expansions.
+   */
+  public Stream<String> distinct() {
+    return distinct(Integer.MAX_VALUE);
+  }
+
+  /**
+   * <p>
+   * Returns lazy stream of distinct expansions, every expansion is returned where it occurs for the first time, e.g.
+   * {@code &#123;a,b,a,c&#125;} is expanded to {@code a b c}.
+   * </p>
+   * <p>
+   * Returned expansions are remembered in a hash set, but no more than {@code maxRemembered} of them. Once the set is
+   * full, every new expansion is compared with the earlier expansions, which were not remembered, by building them
+   * again. It's much slower, but memory stays bounded.
+   * </p>
+   *
+   * @param maxRemembered maximum number of expansions kept in memory.
+   * @return stream of distinct expansions.
+   * @throws IllegalArgumentException if {@code maxRemembered} is less than 1.
+   */
+  public Stream<String> distinct(int maxRemembered) {
+    if (maxRemembered < 1) {
+      throw new IllegalArgumentException("maxRemembered must be positive: " + maxRemembered);
+    }
+    Spliterator<String> distinct = new Spliterators.AbstractSpliterator<String>(size(),
+        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+
+      private final Set<String> remembered = new HashSet<>();
+      private long next;
+      // index of the first expansion, which is not remembered
+      private long forgotten = -1;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super String> action) {
+        while (next < size()) {
+          long index = next++;
+          String expansion = get(index);
+          if ((skipEmpty && expansion.isEmpty()) || remembered.contains(expansion)) {
+            continue;
+          }
+          if (remembered.size() < maxRemembered) {
+            remembered.add(expansion);
+          } else if (forgotten < 0) {
+            forgotten = index;
+          } else if (occurs(expansion, forgotten, index)) {
+            continue;
+          }
+          action.accept(expansion);
+          return true;
+        }
+        return false;
+      }
+
+    };
+    return StreamSupport.stream(distinct, false);
+  }
+
+  private boolean occurs(String expansion, long from, long to) {
+    for (long i = from; i < to; i++) {
+      if (get(i).equals(expansion)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Same as {@link #sorted(int)}, without a limit on remembered expansions.
+   *
+   * @return sorted stream of distinct expansions.
+   */
+  public Stream<String> sorted() {
+    return sorted(Integer.MAX_VALUE);
+  }
+
+  /**
+   * <p>
+   * Returns lazy stream of distinct expansions in natural order of strings.
+   * </p>
+   * <p>
+   * Expansions are sorted in batches of {@code maxRemembered} smallest expansions, which are not returned yet. Every
+   * batch needs one pass over all expansions, so if there are more than {@code maxRemembered} distinct expansions, it's
+   * slower, but memory stays bounded.
+   * </p>
+   *
+   * @param maxRemembered maximum number of expansions kept in memory.
+   * @return sorted stream of distinct expansions.
+   * @throws IllegalArgumentException if {@code maxRemembered} is less than 1.
+   */
+  public Stream<String> sorted(int maxRemembered) {
+    if (maxRemembered < 1) {
+      throw new IllegalArgumentException("maxRemembered must be positive: " + maxRemembered);
+    }
+    Iterator<String> sorted = new Iterator<String>() {
+
+      private final TreeSet<String> batch = new TreeSet<>();
+      // last returned expansion, next batch starts after it
+      private String last;
+      private boolean done;
+
+      @Override
+      public boolean hasNext() {
+        if (batch.isEmpty() && !done) {
+          for (String expansion : ExpansionTree.this) {
+            if (last == null || expansion.compareTo(last) > 0) {
+              batch.add(expansion);
+              if (batch.size() > maxRemembered) {
+                batch.pollLast();
+              }
+            }
+          }
+          done = batch.size() < maxRemembered;
+        }
+        return !batch.isEmpty();
+      }
+
+      @Override
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        last = batch.pollFirst();
+        return last;
+      }
+
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(sorted,
+        Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+  }
+
+  // range of indexes, which is split in halves
+  private final class Slice implements Spliterator<String> {
+
+    private long from;
+    private final long to;
+
+    private Slice(long from, long to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+      while (from < to) {
+        String expansion = get(from++);
+        if (!skipEmpty || !expansion.isEmpty()) {
+          action.accept(expansion);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+      long middle = from + (to - from) / 2;
+      if (middle <= from) {
+        return null;
+      }
+      Slice prefix = new Slice(from, middle);
+      from = middle;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+      int result = ORDERED | NONNULL | IMMUTABLE;
+      if (!skipEmpty && root.size < Long.MAX_VALUE) {
+        result |= SIZED | SUBSIZED;
+      }
+      return result;
+    }
+
+  }
+
+  // sizes are saturated at Long.MAX_VALUE, indexes are valid only below the first saturated node
+  private static long add(long a, long b) {
+    long result = a + b;
+    return result < 0 ? Long.MAX_VALUE : result;
+  }
+
+  private static long multiply(long a, long b) {
+    if (a == 0 || b == 0) {
+      return 0;
+    }
+    return a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+  }
+
+  abstract static class Node {
+
+    final long size;
+
+    Node(long size) {
+      this.size = size;
+    }
+
+    /**
+     * Appends expansion with the given index. If {@code masked} is set, escaped characters are appended as
+     * {@code \0}, which is needed when expansion is expanded again.
+     */
+    abstract void append(long index, StringBuilder out, boolean masked);
+
+    // exact number of expansions, null if infinite
+    abstract BigInteger count();
+
+    // exact number of empty expansions, always finite
+    abstract BigInteger empties();
+
+    // whether some expansion may contain one of the characters, escaped characters are never contained
+    abstract boolean mayContain(String chars);
+
+    // whether some expansion may start with the character
+    abstract boolean mayStartWith(char c);
+
+    // whether some expansion may end with the character
+    abstract boolean mayEndWith(char c);
+
+    // whether some expansion may contain the character twice in a row
+    abstract boolean mayRepeat(char c);
+
+    boolean mayBeEmpty() {
+      return empties().signum() > 0;
+    }
+
+    boolean skipsEmpty() {
+      return false;
+    }
+
+  }
+
+  /**
+   * Single string, part of the expanded text between {@code from} and {@code to}.
+   */
+  static final class Literal extends Node {
+
+    private final String text;
+    private final String mask;
+    private final int from;
+    private final int to;
+
+    Literal(String text, String mask, int from, int to) {
+      super(1);
+      this.text = text;
+      this.mask = mask;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    void append(long index, StringBuilder out, boolean masked) {
+      out.append(masked ? mask : text, from, to);
+    }
+
+    @Override
+    BigInteger count() {
+      return BigInteger.ONE;
+    }
+
+    @Override
+    BigInteger empties() {
+      return from == to ? BigInteger.ONE : BigInteger.ZERO;
+    }
+
+    @Override
+    boolean mayContain(String chars) {
+      for (int i = from; i < to; i++) {
+        if (chars.indexOf(mask.charAt(i)) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayStartWith(char c) {
+      return from < to && mask.charAt(from) == c;
+    }
+
+    @Override
+    boolean mayEndWith(char c) {
+      return from < to && mask.charAt(to - 1) == c;
+    }
+
+    @Override
+    boolean mayRepeat(char c) {
+      for (int i = from + 1; i < to; i++) {
+        if (mask.charAt(i - 1) == c && mask.charAt(i) == c) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  /**
+   * Expansions of all children, one after another.
+   */
+  static final class Alternatives extends Node {
+
+    private final Node[] children;
+    // index of the first expansion of every child
+    private final long[] offsets;
+
+    Alternatives(Node[] children) {
+      super(total(children));
+      this.children = children;
+      this.offsets = new long[children.length];
+      long offset = 0;
+      for (int i = 0; i < children.length; i++) {
+        offsets[i] = offset;
+        offset = add(offset, children[i].size);
+      }
+    }
+
+    private static long total(Node[] children) {
+      long result = 0;
+      for (Node child : children) {
+        result = add(result, child.size);
+      }
+      return result;
+    }
+
+    @Override
+    void append(long index, StringBuilder out, boolean masked) {
+      int low = 0;
+      int high = children.length - 1;
+      while (low < high) {
+        int middle = (low + high + 1) >>> 1;
+        if (offsets[middle] <= index) {
+          low = middle;
+        } else {
+          high = middle - 1;
+        }
+      }
+      // skip children without expansions
+      while (children[low].size == 0) {
+        low++;
+      }
+      children[low].append(index - offsets[low], out, masked);
+    }
+
+    @Override
+    BigInteger count() {
+      BigInteger result = BigInteger.ZERO;
+      for (Node child : children) {
+        BigInteger count = child.count();
+        if (count == null) {
+          return null;
+        }
+        result = result.add(count);
+      }
+      return result;
+    }
+
+    @Override
+    BigInteger empties() {
+      BigInteger result = BigInteger.ZERO;
+      for (Node child : children) {
+        result = result.add(child.empties());
+      }
+      return result;
+    }
+
+    @Override
+    boolean mayContain(String chars) {
+      for (Node child : children) {
+        if (child.mayContain(chars)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayStartWith(char c) {
+      for (Node child : children) {
+        if (child.mayStartWith(c)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayEndWith(char c) {
+      for (Node child : children) {
+        if (child.mayEndWith(c)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayRepeat(char c) {
+      for (Node child : children) {
+        if (child.mayRepeat(c)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  /**
+   * Every expansion of the first factor combined with every expansion of the next factors. Sets, which follow each
+   * other, are kept in one product, so the tree is only as deep as the sets are nested.
+   */
+  static final class Product extends Node {
+
+    private final Node[] factors;
+    // number of expansions of all factors after the given one
+    private final long[] weights;
+    private final boolean skipEmpty;
+
+    Product(Node[] factors, boolean skipEmpty) {
+      super(total(factors));
+      this.factors = factors;
+      this.weights = new long[factors.length];
+      long weight = 1;
+      for (int i = factors.length - 1; i >= 0; i--) {
+        weights[i] = weight;
+        weight = multiply(weight, factors[i].size);
+      }
+      this.skipEmpty = skipEmpty;
+    }
+
+    private static long total(Node[] factors) {
+      long result = 1;
+      for (Node factor : factors) {
+        result = multiply(result, factor.size);
+      }
+      return result;
+    }
+
+    @Override
+    void append(long index, StringBuilder out, boolean masked) {
+      for (int i = 0; i < factors.length; i++) {
+        Node factor = factors[i];
+        factor.append(factor.size == 1 ? 0 : index / weights[i] % factor.size, out, masked);
+      }
+    }
+
+    @Override
+    BigInteger count() {
+      BigInteger result = BigInteger.ONE;
+      for (Node factor : factors) {
+        BigInteger count = factor.count();
+        if (count == null) {
+          return null;
+        }
+        result = result.multiply(count);
+      }
+      return result;
+    }
+
+    @Override
+    BigInteger empties() {
+      BigInteger result = BigInteger.ONE;
+      for (Node factor : factors) {
+        result = result.multiply(factor.empties());
+      }
+      return result;
+    }
+
+    @Override
+    boolean mayContain(String chars) {
+      for (Node factor : factors) {
+        if (factor.mayContain(chars)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayStartWith(char c) {
+      for (Node factor : factors) {
+        if (factor.mayStartWith(c)) {
+          return true;
+        }
+        if (!factor.mayBeEmpty()) {
+          return false;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayEndWith(char c) {
+      for (int i = factors.length - 1; i >= 0; i--) {
+        if (factors[i].mayEndWith(c)) {
+          return true;
+        }
+        if (!factors[i].mayBeEmpty()) {
+          return false;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayRepeat(char c) {
+      for (int i = 0; i < factors.length; i++) {
+        if (factors[i].mayRepeat(c)) {
+          return true;
+        }
+        if (!factors[i].mayEndWith(c)) {
+          continue;
+        }
+        // next factors, which are not empty, may start with the same character
+        for (int j = i + 1; j < factors.length; j++) {
+          if (factors[j].mayStartWith(c)) {
+            return true;
+          }
+          if (!factors[j].mayBeEmpty()) {
+            break;
+          }
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean skipsEmpty() {
+      return skipEmpty;
+    }
+
+  }
+
+  /**
+   * Numeric or alpha sequence, values are computed from the index.
+   */
+  static final class Sequence extends Node {
+
+    private final boolean alpha;
+    private final long x;
+    private final long y;
+    private final long incr;
+    private final boolean pad;
+    private final int width;
+
+    Sequence(boolean alpha, long x, long y, long incr, boolean pad, int width) {
+      super(count(x, y, incr));
+      this.alpha = alpha;
+      this.x = x;
+      this.y = y;
+      this.incr = y < x ? -incr : incr;
+      this.pad = pad;
+      this.width = width;
+    }
+
+    private static long count(long x, long y, long incr) {
+      if (incr == 0) {
+        // never ends
+        return Long.MAX_VALUE;
+      }
+      long distance = y < x ? x - y : y - x;
+      if (distance < 0) {
+        distance = Long.MAX_VALUE;
+      }
+      return add(distance / incr, 1);
+    }
+
+    @Override
+    void append(long index, StringBuilder out, boolean masked) {
+      long i = x + index * incr;
+      if (alpha) {
+        if ((char) i != '\\') {
+          out.append((char) i);
+        }
+        return;
+      }
+      String c = Long.toString(i);
+      if (pad) {
+        int need = width - c.length();
+        if (need > 0) {
+          if (i < 0) {
+            out.append('-');
+            c = c.substring(1);
+          }
+          for (int k = 0; k < need; k++) {
+            out.append('0');
+          }
+        }
+      }
+      out.append(c);
+    }
+
+    @Override
+    BigInteger count() {
+      if (incr == 0) {
+        return null;
+      }
+      BigInteger distance = BigInteger.valueOf(y).subtract(BigInteger.valueOf(x)).abs();
+      return distance.divide(BigInteger.valueOf(incr).abs()).add(BigInteger.ONE);
+    }
+
+    @Override
+    BigInteger empties() {
+      if (!alpha || incr == 0) {
+        return BigInteger.ZERO;
+      }
+      // only backslash is expanded to an empty string
+      long distance = '\\' - x;
+      boolean hit = distance % incr == 0 && distance / incr >= 0 && (y < x ? '\\' >= y : '\\' <= y);
+      return hit ? BigInteger.ONE : BigInteger.ZERO;
+    }
+
+    @Override
+    boolean mayContain(String chars) {
+      for (int i = 0; i < chars.length(); i++) {
+        char c = chars.charAt(i);
+        boolean hit = alpha ? c >= Math.min(x, y) && c <= Math.max(x, y) : c == '-' || Character.isDigit(c);
+        if (hit) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean mayStartWith(char c) {
+      return alpha ? c >= Math.min(x, y) && c <= Math.max(x, y) : c == '-' || Character.isDigit(c);
+    }
+
+    @Override
+    boolean mayEndWith(char c) {
+      return alpha ? c >= Math.min(x, y) && c <= Math.max(x, y) : Character.isDigit(c);
+    }
+
+    @Override
+    boolean mayRepeat(char c) {
+      // alpha values are single characters
+      return !alpha && Character.isDigit(c);
+    }
+
+  }
+
+  /**
+   * Expansions of the inner node, each one wrapped in braces, e.g. {@code &#123;a&#125;} and {@code &#123;b&#125;} for
+   * {@code &#123;&#123;a,b&#125;&#125;}. Braces are added when expansion is built, so the wrapped expansions are never
+   * created in advance.
+   */
+  static final class Braced extends Node {
+
+    private final Node inner;
+
+    Braced(Node inner) {
+      super(inner.size);
+      this.inner = inner;
+    }
+
+    @Override
+    void append(long index, StringBuilder out, boolean masked) {
+      out.append('{');
+      inner.append(index, out, masked);
+      out.append('}');
+    }
+
+    @Override
+    BigInteger count() {
+      return inner.count();
+    }
+
+    @Override
+    BigInteger empties() {
+      return BigInteger.ZERO;
+    }
+
+    @Override
+    boolean mayContain(String chars) {
+      return chars.indexOf('{') >= 0 || chars.indexOf('}') >= 0 || inner.mayContain(chars);
+    }
+
+    @Override
+    boolean mayStartWith(char c) {
+      return c == '{';
+    }
+
+    @Override
+    boolean mayEndWith(char c) {
+      return c == '}';
+    }
+
+    @Override
+    boolean mayRepeat(char c) {
+      return inner.mayRepeat(c) || (c == '{' && inner.mayStartWith(c)) || (c == '}' && inner.mayEndWith(c));
+    }
+
+  }
+
+}
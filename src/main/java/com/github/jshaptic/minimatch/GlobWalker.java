@@ -0,0 +1,188 @@
+package com.github.jshaptic.minimatch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Finds files under a directory, which match the pattern. Pattern is matched against paths relative to the directory,
+ * with {@code /} as a separator, e.g. {@code src/**}{@code /*.js}.
+ * </p>
+ * <p>
+ * Only the directories, which can contain matching files, are listed: the walk starts from the literal prefix of the
+ * pattern ({@code src} above), and directories, which can't contain any matches (see
+ * {@link MatchState#canMatchBelow()}), are never entered. Entries, which don't match and can't contain matches, are not
+ * even stat'ed, attributes are read only for the other entries, once, and passed to the consumer.
+ * </p>
+ * <p>
+ * Directories are listed in parallel, on the {@link ForkJoinPool}, every directory is a separate task. Symbolic links
+ * are reported same as files, but they are never followed.
+ * </p>
+ */
+public final class GlobWalker {
+
+  private final Minimatch mm;
+  private final ForkJoinPool pool;
+  // called with every directory before it's listed
+  private final Consumer<Path> listener;
+
+  /**
+   * Creates walker, which lists directories on the {@link ForkJoinPool#commonPool() common pool}.
+   *
+   * @param mm compiled pattern.
+   */
+  public GlobWalker(Minimatch mm) {
+    this(mm, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates walker, which lists directories on the given pool.
+   *
+   * @param mm compiled pattern.
+   * @param pool pool used to list directories.
+   */
+  public GlobWalker(Minimatch mm, ForkJoinPool pool) {
+    this(mm, pool, dir -> {});
+  }
+
+  GlobWalker(Minimatch mm, ForkJoinPool pool, Consumer<Path> listener) {
+    this.mm = Objects.requireNonNull(mm);
+    this.pool = Objects.requireNonNull(pool);
+    this.listener = listener;
+  }
+
+  /**
+   * <p>
+   * Walks the directory and passes every matching path with its attributes to the consumer, as soon as it's found.
+   * </p>
+   * <p>
+   * Consumer is called from many threads at once, in no particular order, so it must be thread-safe. Directories, which
+   * can't be read, are skipped.
+   * </p>
+   *
+   * @param root directory to walk.
+   * @param consumer consumer of the matching paths, which are resolved against {@code root}.
+   * @throws IOException if {@code root} can't be read.
+   */
+  public void walk(Path root, BiConsumer<Path, BasicFileAttributes> consumer) throws IOException {
+    Objects.requireNonNull(root);
+    Objects.requireNonNull(consumer);
+
+    // every matching path starts with the literal prefix, so there is no need to list directories above it
+    MatchState state = mm.matchState();
+    Path start = root;
+    for (String segment : mm.getLiteralBase()) {
+      start = start.resolve(segment);
+      state = state.next(segment);
+    }
+
+    BasicFileAttributes attrs;
+    try {
+      attrs = Files.readAttributes(start, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (NoSuchFileException e) {
+      if (start == root) {
+        throw e;
+      }
+      // nothing matches
+      return;
+    }
+    if (start != root && state.matches()) {
+      consumer.accept(start, attrs);
+    }
+    if (!attrs.isDirectory() || !state.canMatchBelow()) {
+      return;
+    }
+
+    try {
+      pool.invoke(new Visit(start, state, consumer, listener, start == root));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Returns all matching paths under the directory, sorted.
+   *
+   * @param root directory to walk.
+   * @return matching paths, which are resolved against {@code root}.
+   * @throws IOException if {@code root} can't be read.
+   */
+  public List<Path> glob(Path root) throws IOException {
+    List<Path> result = Collections.synchronizedList(new ArrayList<>());
+    walk(root, (path, attrs) -> result.add(path));
+    Collections.sort(result);
+    return result;
+  }
+
+  // lists one directory and forks visits of its subdirectories
+  private static final class Visit extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Path dir;
+    private final transient MatchState state;
+    private final transient BiConsumer<Path, BasicFileAttributes> consumer;
+    private final transient Consumer<Path> listener;
+    // errors are reported only for the directory, where the walk starts
+    private final boolean start;
+
+    private Visit(Path dir, MatchState state, BiConsumer<Path, BasicFileAttributes> consumer,
+        Consumer<Path> listener, boolean start) {
+      this.dir = dir;
+      this.state = state;
+      this.consumer = consumer;
+      this.listener = listener;
+      this.start = start;
+    }
+
+    @Override
+    protected void compute() {
+      List<Visit> subdirectories = new ArrayList<>();
+      listener.accept(dir);
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+        for (Path entry : entries) {
+          MatchState child = state.next(entry.getFileName().toString());
+          boolean matches = child.matches();
+          boolean below = child.canMatchBelow();
+          if (!matches && !below) {
+            continue;
+          }
+          BasicFileAttributes attrs;
+          try {
+            attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+          } catch (IOException e) {
+            // entry is gone or can't be read
+            continue;
+          }
+          if (matches) {
+            consumer.accept(entry, attrs);
+          }
+          if (below && attrs.isDirectory()) {
+            subdirectories.add(new Visit(entry, child, consumer, listener, false));
+          }
+        }
+      } catch (IOException e) {
+        if (start) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      invokeAll(subdirectories);
+    }
+
+  }
+
+}
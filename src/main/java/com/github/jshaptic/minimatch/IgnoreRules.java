@@ -0,0 +1,211 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Ordered list of ignore rules with {@code .gitignore} semantics.
+ * </p>
+ * <p>
+ * Every rule is a line of the ignore file:
+ * </p>
+ * <ul>
+ * <li>blank lines and lines starting with {@code #} are skipped, use {@code \#} for a literal {@code #};</li>
+ * <li>trailing spaces are removed, unless they are escaped with a backslash;</li>
+ * <li>leading {@code !} re-includes paths excluded by previous rules, use {@code \!} for a literal {@code !};</li>
+ * <li>trailing {@code /} makes the rule match only directories;</li>
+ * <li>rule with a slash at the beginning or in the middle is relative to the root, rule without a slash matches at any
+ * level;</li>
+ * <li>wildcards match dots, braces and extglob patterns are not supported.</li>
+ * </ul>
+ * <p>
+ * The last matching rule wins. When a directory is excluded, everything below it is excluded as well, and can't be
+ * re-included by a later negated rule.
+ * </p>
+ * <p>
+ * Rules are indexed with {@link PatternSet}, so checking a path doesn't evaluate every rule: candidate rules are found
+ * by the literal parts and the extension of the path, and are tested starting from the last one.
+ * </p>
+ * <p>
+ * Paths are relative to the root of the rules, with {@code /} as a separator. Adding rules is not thread-safe, but once
+ * all rules are added, the object can be used from many threads.
+ * </p>
+ */
+public final class IgnoreRules {
+
+  private static final int OPTIONS =
+      Minimatch.DOT | Minimatch.NO_BRACE | Minimatch.NO_EXT | Minimatch.NO_COMMENT | Minimatch.NO_NEGATE;
+
+  // all rules are used for directories, files are checked only against the rules without trailing slash
+  private final PatternSet directoryRules = new PatternSet();
+  private final PatternSet fileRules = new PatternSet();
+  // rule ids for every pattern in the sets above
+  private final List<Integer> directoryIds = new ArrayList<>();
+  private final List<Integer> fileIds = new ArrayList<>();
+  private final List<Boolean> negated = new ArrayList<>();
+  private int lines;
+
+  /**
+   * Creates empty list of rules, which doesn't ignore anything.
+   */
+  public IgnoreRules() {}
+
+  /**
+   * Creates list of rules from the lines of an ignore file.
+   *
+   * @param lines lines of an ignore file.
+   */
+  public IgnoreRules(List<String> lines) {
+    for (String line : lines) {
+      add(line);
+    }
+  }
+
+  /**
+   * Adds rule to the end of the list.
+   *
+   * @param line line of an ignore file.
+   * @return id of the rule, which is the index of the line among all added lines, including skipped ones.
+   */
+  public int add(String line) {
+    Objects.requireNonNull(line);
+    int id = lines++;
+
+    String rule = trimTrailingSpaces(line);
+    if (rule.isEmpty() || rule.charAt(0) == '#') {
+      negated.add(false);
+      return id;
+    }
+
+    boolean negate = rule.charAt(0) == '!';
+    negated.add(negate);
+    if (negate) {
+      rule = rule.substring(1);
+    }
+
+    boolean directoryOnly = rule.endsWith("/");
+    if (directoryOnly) {
+      rule = rule.substring(0, rule.length() - 1);
+    }
+    if (rule.isEmpty()) {
+      return id;
+    }
+
+    if (rule.endsWith("\\ ")) {
+      // Minimatch trims patterns, so the escaped trailing space is kept as a class
+      rule = rule.substring(0, rule.length() - 2) + "[ ]";
+    }
+
+    if (rule.indexOf('/') < 0) {
+      // matches at any level
+      rule = "**/" + rule;
+    } else if (rule.charAt(0) == '/') {
+      rule = rule.substring(1);
+    }
+
+    Minimatch mm = new Minimatch(rule, OPTIONS);
+    directoryRules.add(mm);
+    directoryIds.add(id);
+    if (!directoryOnly) {
+      fileRules.add(mm);
+      fileIds.add(id);
+    }
+    return id;
+  }
+
+  /**
+   * <p>
+   * Checks if the path is ignored, either by a rule matching the path itself, or because one of its parent directories
+   * is ignored.
+   * </p>
+   * <p>
+   * When walking a file tree top-down and skipping ignored directories, parent checks are redundant, use
+   * {@link #findRule(String, boolean)} for the entries of not ignored directories instead.
+   * </p>
+   *
+   * @param path path relative to the root of the rules.
+   * @param directory {@code true} if the path is a directory.
+   * @return {@code true} if the path is ignored.
+   */
+  public boolean isIgnored(String path, boolean directory) {
+    PathTokens tokens = PathTokens.of(path);
+    // trailing empty segment is not a parent
+    int parents = tokens.size() > 1 && tokens.isEmpty(tokens.size() - 1) ? tokens.size() - 2 : tokens.size() - 1;
+    for (int i = 0; i < parents; i++) {
+      if (!tokens.isEmpty(i) && isExcluded(find(PathTokens.tokenize(tokens.path().subSequence(0, tokens.end(i))),
+          true))) {
+        return true;
+      }
+    }
+    return isExcluded(find(tokens, directory));
+  }
+
+  /**
+   * Checks if the directory and everything below it is ignored, so it doesn't need to be walked at all.
+   *
+   * @param directory path of a directory relative to the root of the rules.
+   * @return {@code true} if the whole subtree is ignored.
+   */
+  public boolean isSubtreeExcluded(String directory) {
+    return isIgnored(directory, true);
+  }
+
+  /**
+   * Returns the last rule, which matches the path itself. Parent directories are not checked.
+   *
+   * @param path path relative to the root of the rules.
+   * @param directory {@code true} if the path is a directory.
+   * @return id of the rule returned by {@link #add(String)}, or {@code -1} if no rule matches the path.
+   */
+  public int findRule(String path, boolean directory) {
+    return find(PathTokens.of(path), directory);
+  }
+
+  /**
+   * Checks if the rule re-includes paths, i.e. starts with {@code !}.
+   *
+   * @param id id of the rule returned by {@link #add(String)}.
+   * @return {@code true} if the rule is negated.
+   */
+  public boolean isNegated(int id) {
+    return negated.get(id);
+  }
+
+  /**
+   * Returns number of added lines, including skipped ones.
+   */
+  public int size() {
+    return lines;
+  }
+
+  private int find(PathTokens path, boolean directory) {
+    int found = directory ? directoryRules.findLast(path) : fileRules.findLast(path);
+    if (found < 0) {
+      return -1;
+    }
+    return directory ? directoryIds.get(found) : fileIds.get(found);
+  }
+
+  private boolean isExcluded(int id) {
+    return id >= 0 && !negated.get(id);
+  }
+
+  private static String trimTrailingSpaces(String line) {
+    int end = line.length();
+    while (end > 0 && line.charAt(end - 1) == ' ') {
+      // count backslashes before the space, odd number means the space is escaped
+      int slashes = 0;
+      while (end - 2 - slashes >= 0 && line.charAt(end - 2 - slashes) == '\\') {
+        slashes++;
+      }
+      if (slashes % 2 == 1) {
+        break;
+      }
+      end--;
+    }
+    return line.substring(0, end);
+  }
+
+}
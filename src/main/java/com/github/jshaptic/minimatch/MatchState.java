@@ -0,0 +1,154 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * State of matching a path against the pattern, which is advanced one segment at a time. State of the path
+ * {@code a/b/c} is {@code mm.matchState().next("a").next("b").next("c")}, and it gives the same results as
+ * {@link Minimatch#match(String, boolean)} for {@code a/b/c}.
+ * </p>
+ * <p>
+ * When a file tree is walked, state of a directory is computed once and state of every child is derived from it, so
+ * time spent on a path doesn't depend on its depth. If {@link #canMatchBelow()} is {@code false}, nothing under the
+ * directory can match and the whole subtree can be skipped.
+ * </p>
+ * <p>
+ * State is immutable, {@link #next(String)} returns another state and the old one can be advanced again with another
+ * segment.
+ * </p>
+ * <p>
+ * Empty segments are treated same way as {@link Minimatch#match(String)} treats repeated slashes: path
+ * {@code a/}{@code /b}, i.e. {@code next("a").next("").next("b")}, is the same as {@code a/b}, and {@code a/}{@code /}
+ * is the same as {@code a/}. Only the leading and the trailing empty segments are kept, so path {@code /} is the state
+ * of two empty segments. Path {@code /} matches any pattern partially, but {@code /}{@code /} doesn't, same as in
+ * {@link Minimatch#match(String, boolean)}.
+ * </p>
+ */
+public final class MatchState {
+
+  private final Minimatch mm;
+  // positions in the rows of the pattern, which are reachable by the segments so far
+  private final int[] positions;
+  private final int depth;
+  // true if all segments so far are empty
+  private final boolean empty;
+  // last non-empty segment, or the first one if all of them are empty, null if there are no segments
+  private final String basename;
+  // state without the trailing empty segment, which is dropped if another segment follows, null if there is none
+  private final MatchState beforeSlash;
+  // true for the path "/" itself
+  private final boolean slash;
+
+  MatchState(Minimatch mm) {
+    this(mm, mm.startPositions(), 0, true, null, null, false);
+  }
+
+  private MatchState(Minimatch mm, int[] positions, int depth, boolean empty, String basename,
+      MatchState beforeSlash, boolean slash) {
+    this.mm = mm;
+    this.positions = positions;
+    this.depth = depth;
+    this.empty = empty;
+    this.basename = basename;
+    this.beforeSlash = beforeSlash;
+    this.slash = slash;
+  }
+
+  /**
+   * Returns state of the path with one more segment.
+   *
+   * @param segment next segment of the path, e.g. file name, which must not contain {@code /}.
+   * @return state of the path followed by the segment.
+   * @throws IllegalArgumentException if segment contains {@code /}.
+   */
+  public MatchState next(String segment) {
+    Objects.requireNonNull(segment);
+    if (segment.indexOf('/') >= 0) {
+      throw new IllegalArgumentException("segment must not contain /: " + segment);
+    }
+    if (beforeSlash != null) {
+      if (!segment.isEmpty()) {
+        return beforeSlash.next(segment);
+      }
+      // repeated slashes are a single separator, but // is not the path /
+      return slash ? new MatchState(mm, positions, depth, empty, basename, beforeSlash, false) : this;
+    }
+    String base = segment.isEmpty() && basename != null ? basename : segment;
+    return new MatchState(mm, mm.advance(positions, PathTokens.tokenize(segment)), depth + 1,
+        empty && segment.isEmpty(), base, segment.isEmpty() && depth > 0 ? this : null,
+        segment.isEmpty() && depth == 1 && empty);
+  }
+
+  /**
+   * Returns number of segments of the path.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns {@code true} if the path matches the pattern, same as {@link Minimatch#match(String)}. State without any
+   * segments never matches.
+   */
+  public boolean matches() {
+    return match(false);
+  }
+
+  /**
+   * Returns {@code true} if the path matches the start of the pattern, same as
+   * {@link Minimatch#match(String, boolean)} with {@code partial} set. State without any segments never matches.
+   */
+  public boolean matchesPartially() {
+    return match(true);
+  }
+
+  /**
+   * <p>
+   * Returns {@code false} if no path below this one can match the pattern, so there is no need to walk it. Path with a
+   * trailing slash, like {@code a/b/} for {@code a/b}, is not below it.
+   * </p>
+   * <p>
+   * Result is exact for patterns without negation, which are not matched against the basename. Otherwise it's always
+   * {@code true}, unless the pattern can't match anything at all.
+   * </p>
+   */
+  public boolean canMatchBelow() {
+    if (mm.isComment()) {
+      return false;
+    }
+    if (mm.isEmpty()) {
+      // only an empty path matches
+      return depth == 0;
+    }
+    if ((mm.isNegated() && !Minimatch.hasOption(mm.getOptions(), Minimatch.FLIP_NEGATE)) || mm.hasBaseRows()) {
+      return true;
+    }
+    return mm.continues(positions);
+  }
+
+  // same as Minimatch.match(path, partial)
+  private boolean match(boolean partial) {
+    if (depth == 0 || mm.isComment()) {
+      return false;
+    }
+    if (mm.isEmpty()) {
+      return depth == 1 && empty;
+    }
+    if (partial && slash) {
+      // path is "/"
+      return true;
+    }
+    boolean hit = (partial ? positions.length > 0 : mm.accepts(positions)) || mm.matchBase(basename, partial);
+    if (Minimatch.hasOption(mm.getOptions(), Minimatch.FLIP_NEGATE)) {
+      return hit;
+    }
+    return hit != mm.isNegated();
+  }
+
+  @Override
+  public String toString() {
+    return "{depth=" + depth + ", positions=" + positions.length / 2 + "}";
+  }
+
+}
@@ -2,15 +2,25 @@ package com.github.jshaptic.minimatch;
 
 import static java.util.stream.Collectors.toList;
 
+import java.math.BigInteger;
 import java.nio.file.FileSystems;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -19,6 +29,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -86,6 +97,11 @@ public class Minimatch {
    * Returns from negate expressions the same as if they were not negated. (Ie, true on a hit, false on a miss.)
    */
   public static final int FLIP_NEGATE = 1024;
+  /**
+   * Drop duplicate expansions of brace sets from the result of {@link #braceExpand(String, int)}, every expansion is
+   * kept where it occurs for the first time. Duplicate expansions are always ignored when paths are matched.
+   */
+  public static final int NO_DUPLICATES = 2048;
 
   private static final String SEP = FileSystems.getDefault().getSeparator();
 
@@ -129,14 +145,32 @@ public class Minimatch {
   private static final Pattern regexpEscaper = Pattern.compile("[-\\[\\]{}()*+?.,\\\\^$|#\\s]");
   private static final Pattern globUnscaper = Pattern.compile("\\\\(.)");
 
+  // shared cache of compiled patterns used by the static helpers.
+  private static final MinimatchCache cache = new MinimatchCache();
+
   private int options;
+  private long expansionLimit;
   private MinimatchPattern[][] set;
+  private MinimatchPattern[][] matchSet;
+  private SegmentTrie matchTrie;
+  // rows matched against the basename of the path, null if there are none
+  private SegmentTrie baseTrie;
+  // first position of every row of matchSet in MatchState
+  private int[] positionOffsets;
+  private boolean hasSequences;
+  private boolean hasDuplicates;
   private String pattern;
   private boolean regexpCompiled;
   private Pattern regexp;
   private boolean negate;
   private boolean comment;
   private boolean empty;
+  // facts about the paths, which can be matched by some row of the set, see analyze()
+  private List<String> literalBase = Collections.emptyList();
+  private int minDepth;
+  private int maxDepth = Integer.MAX_VALUE;
+  private String extension;
+  private List<String> requiredLiterals = Collections.emptyList();
 
   /**
    * Minimatch class constructor.
@@ -145,6 +179,25 @@ public class Minimatch {
    * @param options various flags that can affect matching.
    */
   public Minimatch(String pattern, int options) {
+    this(pattern, options, Long.MAX_VALUE);
+  }
+
+  /**
+   * <p>
+   * Minimatch class constructor, which limits number of brace expansions of the pattern.
+   * </p>
+   * <p>
+   * Expansions are counted before they are created, so patterns like {@code a&#123;1..999999999&#125;/*} from untrusted
+   * sources fail fast instead of exhausting memory. Large sequences, which are matched with range checks instead of
+   * being expanded, are not counted, but {@link #makeRe()} has to expand them and fails in that case.
+   * </p>
+   *
+   * @param pattern pattern to use for matching.
+   * @param options various flags that can affect matching.
+   * @param expansionLimit maximum allowed number of brace expansions.
+   * @throws BraceExpansionLimitException if the pattern has more brace expansions than allowed.
+   */
+  public Minimatch(String pattern, int options, long expansionLimit) {
     Objects.requireNonNull(pattern);
 
     pattern = pattern.trim();
@@ -155,7 +208,10 @@ public class Minimatch {
     }
 
     this.options = options;
+    this.expansionLimit = expansionLimit;
     this.set = new MinimatchPattern[][] {};
+    this.matchSet = this.set;
+    this.matchTrie = new SegmentTrie(null, 0);
     this.pattern = pattern;
     this.regexpCompiled = false;
     this.regexp = null;
@@ -179,14 +235,34 @@ public class Minimatch {
   // PORT_INFO: defaults and ext methods are not needed in this port, too javascript specific.
 
   /**
+   * <p>
+   * Returns the cache of compiled patterns, which is shared by {@link #minimatch(String, String, int)},
+   * {@link #makeRe(String, int)} and {@link #match(List, String, int)}.
+   * </p>
+   * <p>
+   * Use it to adjust the cache size or to read hit, miss and eviction counters.
+   * </p>
+   *
+   * @return shared cache of compiled patterns.
+   */
+  public static MinimatchCache getCache() {
+    return cache;
+  }
+
+  /**
+   * <p>
    * Returns a function that tests its supplied argument, suitable for use with filter functions.
+   * </p>
+   * <p>
+   * The pattern is compiled once, when this method is called, so returned predicate doesn't do any parsing.
+   * </p>
    *
    * @param pattern pattern to use for testing.
    * @param options various flags that can affect testing.
    * @return predicate function, which can be used for testing.
    */
   public static Predicate<String> filter(String pattern, int options) {
-    return (p) -> minimatch(p, pattern, options);
+    return filter(cache.get(pattern, options));
   }
 
   /**
@@ -199,6 +275,18 @@ public class Minimatch {
     return filter(pattern, NO_OPTIONS);
   }
 
+  /**
+   * Returns a function that tests its supplied argument against already compiled {@link Minimatch} object, suitable for
+   * use with filter functions.
+   *
+   * @param mm compiled pattern to use for testing.
+   * @return predicate function, which can be used for testing.
+   */
+  public static Predicate<String> filter(Minimatch mm) {
+    Objects.requireNonNull(mm);
+    return mm::match;
+  }
+
   /**
    * Tests a path against the pattern using the options.
    *
@@ -220,7 +308,7 @@ public class Minimatch {
       return p.isEmpty();
     }
 
-    return new Minimatch(pattern, options).match(p);
+    return cache.get(pattern, options).match(p);
   }
 
   /**
@@ -252,34 +340,246 @@ public class Minimatch {
     this.parseNegate();
 
     // step 2: expand braces
-    String[] globSet = this.braceExpand();
+    // PORT_INFO: large brace sequences are not expanded, they are replaced with placeholders, which are compiled into
+    // range checks, see SequenceMatcher. If it's not possible, pattern is expanded as usual.
+    MinimatchPattern[][] set = null;
+    if (!hasOption(options, NO_BRACE) && !hasOption(options, NO_CASE)) {
+      List<SequenceMatcher.Sequence> sequences = new ArrayList<>();
+      String compact = SequenceMatcher.replaceSequences(this.pattern, sequences);
+      if (compact != null) {
+        try {
+          set = this.compileDistinct(compact, sequences);
+        } catch (BraceExpansionLimitException e) {
+          // report original pattern, not the one with placeholders, it has at least as many expansions, so the limit is
+          // exceeded again
+          BraceExpansion.tree(this.pattern, this.expansionLimit);
+          throw e;
+        }
+        this.hasSequences = set != null;
+      }
+    }
+    if (set == null) {
+      set = this.compileDistinct(this.pattern, Collections.emptyList());
+    }
 
-    debug(false, pattern, Arrays.toString(globSet));
+    this.set = set;
+    this.matchSet = mergeAlternatives(set, options);
+    for (MinimatchPattern[] row : this.matchSet) {
+      if (isBaseRow(row)) {
+        if (this.baseTrie == null) {
+          this.baseTrie = new SegmentTrie(null, 0);
+        }
+        this.baseTrie.add(row, hasOption(options, NO_CASE));
+      } else {
+        this.matchTrie.add(row, hasOption(options, NO_CASE));
+      }
+    }
+    // computed with the rows, not on first use, because MatchState advances shared instances from many threads
+    int[] offsets = new int[this.matchSet.length + 1];
+    for (int r = 0; r < this.matchSet.length; r++) {
+      offsets[r + 1] = offsets[r] + (this.matchSet[r].length + 2) * 2;
+    }
+    this.positionOffsets = offsets;
+
+    this.analyze();
+  }
+
+  // PORT_INFO: facts about the compiled rows are collected once, match() uses them to reject paths, which can't match
+  // any row, before the path is tokenized. Facts are valid for negated patterns too, a path rejected this way simply
+  // has no hits.
+  private void analyze() {
+    if (this.set.length == 0) {
+      return;
+    }
+    boolean literal = !hasOption(this.options, NO_CASE);
+    int min = Integer.MAX_VALUE;
+    int max = 0;
+    String ext = null;
+    Set<String> required = null;
+    for (int r = 0; r < this.set.length; r++) {
+      MinimatchPattern[] row = this.set[r];
+      if (isBaseRow(row)) {
+        // matched against the basename, which can be anywhere
+        min = Math.min(min, 1);
+        max = Integer.MAX_VALUE;
+      } else {
+        int globstars = 0;
+        for (MinimatchPattern p : row) {
+          if (p == GLOBSTAR) {
+            globstars++;
+          }
+        }
+        // every other segment matches exactly one path segment, ** matches any number of them, and a/* also matches
+        // a/b/ with one more empty segment
+        min = Math.min(min, row.length - globstars);
+        max = globstars > 0 ? Integer.MAX_VALUE : Math.max(max, row.length + 1);
+      }
+      if (literal) {
+        String e = this.getExtension(r);
+        ext = r == 0 || Objects.equals(ext, e) ? e : null;
+        Set<String> literals = literals(row);
+        if (required == null) {
+          required = literals;
+        } else {
+          required.retainAll(literals);
+        }
+      }
+    }
+
+    this.literalBase = this.getCommonLiteralPrefix();
+    this.minDepth = min;
+    this.maxDepth = max;
+    this.extension = StringUtils.isEmpty(ext) ? null : ext;
+    if (required != null) {
+      // literals contained in other required literals are found with them
+      List<String> result = new ArrayList<>();
+      for (String s : required) {
+        boolean redundant = false;
+        for (String other : required) {
+          redundant |= !other.equals(s) && other.contains(s);
+        }
+        if (!redundant) {
+          result.add(s);
+        }
+      }
+      this.requiredLiterals = Collections.unmodifiableList(result);
+    }
+  }
+
+  // literal parts of the row, which are contained in every path matched by it
+  private static Set<String> literals(MinimatchPattern[] row) {
+    Set<String> result = new LinkedHashSet<>();
+    for (MinimatchPattern p : row) {
+      if (p.isString()) {
+        result.add(p.asString());
+      } else if (p.isMatcher()) {
+        result.addAll(p.asMatcher().getLiterals());
+      }
+    }
+    result.remove("");
+    return result;
+  }
+
+  // PORT_INFO: pattern is expanded into a tree of shared fragments, expansions are built one by one, while they are
+  // compiled, so the whole array of expanded strings is never created. Returns null if there is nothing to expand.
+  private ExpansionTree braceExpandTree(String pattern) {
+    if (hasOption(this.options, NO_BRACE) || !braceExpansion.matcher(pattern).find()) {
+      // shortcut. no need to expand.
+      return null;
+    }
+    return BraceExpansion.tree(pattern, this.expansionLimit);
+  }
+
+  // PORT_INFO: duplicate expansions, like a in {a,b,a}, are dropped, so duplicate rows are never compiled and tried by
+  // match(). Regexp is still built from all expansions, same as in the original implementation.
+  private MinimatchPattern[][] compileDistinct(String pattern, List<SequenceMatcher.Sequence> sequences) {
+    ExpansionTree tree = braceExpandTree(pattern);
+    if (tree == null) {
+      return this.compile(Collections.singletonList(pattern), sequences);
+    }
+    MinimatchPattern[][] set = this.compile(() -> tree.distinct().iterator(), sequences);
+    if (set != null && tree.count().compareTo(BigInteger.valueOf(set.length)) > 0) {
+      this.hasDuplicates = true;
+    }
+    return set;
+  }
+
+  // step 3 of make(), placeholders of brace sequences are compiled into SequenceMatcher, returns null if some
+  // placeholder can't be compiled
+  // PORT_INFO: every distinct segment is parsed only once, expansions like a/{b,c}/d/e share parsed segments a, d and
+  // e, so compiled set takes memory proportional to the number of distinct segments, not to their total length
+  private MinimatchPattern[][] compile(Iterable<String> globSet, List<SequenceMatcher.Sequence> sequences) {
+    String pattern = this.pattern;
 
     // step 3: now we have a set, so turn each one into a series of path-portion
     // matching patterns.
     // These will be regexps, except in the case of "**", which is
     // set to the GLOBSTAR object for globstar behavior,
     // and will not contain any / characters
-    String[][] globParts = new String[globSet.length][];
-    for (int i = 0; i < globParts.length; i++) {
-      globParts[i] = slashSplit.split(globSet[i], -1);
+    List<String[]> globParts = new ArrayList<>();
+    for (String glob : globSet) {
+      globParts.add(slashSplit.split(glob, -1));
     }
 
-    debug(false, pattern, Arrays.deepToString(globParts));
+    debug(false, pattern, Arrays.deepToString(globParts.toArray()));
 
     // glob --> regexps
-    MinimatchPattern[][] set = new MinimatchPattern[globParts.length][];
+    Map<String, MinimatchPattern> parsed = new HashMap<>();
+    MinimatchPattern[][] set = new MinimatchPattern[globParts.size()][];
     for (int i = 0; i < set.length; i++) {
-      set[i] = new MinimatchPattern[globParts[i].length];
-      for (int j = 0; j < set[i].length; j++) {
-        set[i][j] = parse(globParts[i][j], false);
+      String[] parts = globParts.get(i);
+      set[i] = new MinimatchPattern[parts.length];
+      for (int j = 0; j < parts.length; j++) {
+        MinimatchPattern p = parsed.get(parts[j]);
+        if (p == null) {
+          if (!sequences.isEmpty() && SequenceMatcher.hasPlaceholder(parts[j])) {
+            SequenceMatcher matcher = SequenceMatcher.compile(parts[j], sequences);
+            if (matcher == null) {
+              return null;
+            }
+            p = new MinimatchPattern(matcher);
+          } else {
+            p = parse(parts[j], false);
+          }
+          parsed.put(parts[j], p);
+        }
+        set[i][j] = p;
       }
     }
 
     debug(false, pattern, Arrays.deepToString(set));
 
-    this.set = set;
+    return set;
+  }
+
+  // PORT_INFO: rows produced by brace expansion, which differ only in one segment, are merged into a single row with
+  // alternatives in that segment, so match() walks the path once instead of once per expanded row. Merged row matches
+  // exactly the same paths as the rows it was made of, original set is still used to build the regexp.
+  private static MinimatchPattern[][] mergeAlternatives(MinimatchPattern[][] set, int options) {
+    List<MinimatchPattern[]> rows = new ArrayList<>(Arrays.asList(set));
+    int length = 0;
+    for (MinimatchPattern[] row : rows) {
+      length = Math.max(length, row.length);
+    }
+
+    boolean changed = rows.size() > 1;
+    while (changed) {
+      changed = false;
+      for (int k = length - 1; k >= 0 && rows.size() > 1; k--) {
+        // rows with the same segments everywhere except k
+        Map<Object, List<MinimatchPattern[]>> groups = new LinkedHashMap<>();
+        for (MinimatchPattern[] row : rows) {
+          Object key;
+          if (row.length <= k || row[k] == GLOBSTAR) {
+            key = row;
+          } else {
+            List<Object> keys = new ArrayList<>(row.length);
+            for (int i = 0; i < row.length; i++) {
+              keys.add(i == k ? GLOBSTAR : row[i].key());
+            }
+            key = keys;
+          }
+          groups.computeIfAbsent(key, x -> new ArrayList<>()).add(row);
+        }
+        if (groups.size() == rows.size()) {
+          continue;
+        }
+
+        rows.clear();
+        for (List<MinimatchPattern[]> group : groups.values()) {
+          if (group.size() == 1) {
+            rows.add(group.get(0));
+            continue;
+          }
+          MinimatchPattern[] merged = group.get(0).clone();
+          merged[k] = new MinimatchPattern(Alternatives.of(group, k, options));
+          rows.add(merged);
+        }
+        changed = true;
+      }
+    }
+
+    return rows.toArray(new MinimatchPattern[0][]);
   }
 
   private void parseNegate() {
@@ -328,6 +628,20 @@ public class Minimatch {
    * @return list of expanded strings.
    */
   public static String[] braceExpand(String pattern, int options) {
+    return braceExpand(pattern, options, Long.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@link #braceExpand(String, int)}, but fails before any expansion is created, if there are more than
+   * {@code limit} of them.
+   *
+   * @param pattern pattern to use for expansion.
+   * @param options flags that can affect pattern expansion.
+   * @param limit maximum allowed number of expansions.
+   * @return list of expanded strings.
+   * @throws BraceExpansionLimitException if the pattern has more than {@code limit} expansions.
+   */
+  public static String[] braceExpand(String pattern, int options, long limit) {
     Objects.requireNonNull(pattern);
 
     if (hasOption(options, NO_BRACE) || !braceExpansion.matcher(pattern).find()) {
@@ -335,7 +649,9 @@ public class Minimatch {
       return new String[] {pattern};
     }
 
-    return BraceExpansion.expand(pattern);
+    ExpansionTree tree = BraceExpansion.tree(pattern, limit);
+    Stream<String> expansions = hasOption(options, NO_DUPLICATES) ? tree.distinct() : tree.stream();
+    return expansions.toArray(String[]::new);
   }
 
   /**
@@ -366,10 +682,6 @@ public class Minimatch {
     return braceExpand(pattern, NO_OPTIONS);
   }
 
-  private String[] braceExpand() {
-    return braceExpand(this.pattern, this.options);
-  }
-
   // parse a component of the expanded set.
   // At this point, no pattern may contain "/" in it
   // so we're going to return a 2d array, where each entry is the full
@@ -729,7 +1041,14 @@ public class Minimatch {
     MinimatchPattern regExp;
     int flags = hasOption(options, NO_CASE) ? Pattern.CASE_INSENSITIVE : 0;
     try {
-      regExp = new MinimatchPattern(Pattern.compile("^" + re + "$", flags));
+      // PORT_INFO: simple shapes like *.js or a?c are matched without regexp, it's only compiled for extglob and
+      // complex classes.
+      SegmentMatcher matcher = SegmentMatcher.compile(pattern, options);
+      if (matcher != null) {
+        regExp = new MinimatchPattern(matcher);
+      } else {
+        regExp = new MinimatchPattern(Pattern.compile("^" + re + "$", flags));
+      }
     } catch (PatternSyntaxException er) {
       // If it was an invalid regular expression, then it can't match
       // anything. This trick looks for a character after the end of
@@ -782,7 +1101,7 @@ public class Minimatch {
    * </p>
    * 
    * <p>
-   * Each call of this method will implicitly create one instance of {@link Minimatch} object.
+   * Compiled {@link Minimatch} object is taken from the shared {@link #getCache() cache}.
    * </p>
    *
    * @param pattern pattern to process
@@ -790,7 +1109,7 @@ public class Minimatch {
    * @return regular expression generated from the pattern or {@code null} if the pattern is invalid.
    */
   public static Pattern makeRe(String pattern, int options) {
-    return new Minimatch(pattern, options).makeRe();
+    return cache.get(pattern, options).makeRe();
   }
 
   /**
@@ -799,7 +1118,7 @@ public class Minimatch {
    * </p>
    * 
    * <p>
-   * Each call of this method will implicitly create one instance of {@link Minimatch} object.
+   * Compiled {@link Minimatch} object is taken from the shared {@link #getCache() cache}.
    * </p>
    *
    * @param pattern pattern to process
@@ -817,7 +1136,7 @@ public class Minimatch {
    *
    * @return regular expression generated from the pattern or {@code null} if the pattern is invalid.
    */
-  public Pattern makeRe() {
+  public synchronized Pattern makeRe() {
     if (this.regexp != null || this.regexpCompiled) {
       return this.regexp;
     }
@@ -829,6 +1148,11 @@ public class Minimatch {
     // be used, really, but it's pretty convenient sometimes,
     // when you just want to work with a regex.
     MinimatchPattern[][] set = this.set;
+    if (this.hasSequences || this.hasDuplicates) {
+      // regexp needs all values of the sequences and all duplicates
+      ExpansionTree tree = braceExpandTree(this.pattern);
+      set = this.compile(tree != null ? tree : Collections.singletonList(this.pattern), Collections.emptyList());
+    }
 
     if (set.length == 0) {
       this.regexpCompiled = true;
@@ -871,7 +1195,7 @@ public class Minimatch {
    * </p>
    * 
    * <p>
-   * Each call of this method will implicitly create one instance of {@link Minimatch} object.
+   * Compiled {@link Minimatch} object is taken from the shared {@link #getCache() cache}.
    * </p>
    *
    * @param list list of files to match.
@@ -880,7 +1204,7 @@ public class Minimatch {
    * @return list of files, that were successfully matched against pattern.
    */
   public static List<String> match(List<String> list, String pattern, int options) {
-    Minimatch mm = new Minimatch(pattern, options);
+    Minimatch mm = cache.get(pattern, options);
     list = list.stream().filter(mm::match).collect(toList());
     if (hasOption(mm.options, NO_NULL) && list.size() == 0) {
       list.add(pattern);
@@ -895,7 +1219,7 @@ public class Minimatch {
    * </p>
    * 
    * <p>
-   * Each call of this method will implicitly create one instance of {@link Minimatch} object.
+   * Compiled {@link Minimatch} object is taken from the shared {@link #getCache() cache}.
    * </p>
    *
    * @param list list of files to match.
@@ -906,6 +1230,140 @@ public class Minimatch {
     return match(list, pattern, NO_OPTIONS);
   }
 
+  /**
+   * <p>
+   * Returns paths from the sorted set, which match the pattern, in the order of the set.
+   * </p>
+   * <p>
+   * Only the ranges of the set, which start with the literal prefixes of the pattern, are scanned, e.g. paths starting
+   * with {@code src/a/} and {@code src/b/} for {@code src/{a,b}/*.js}, so for selective patterns time depends on the
+   * number of matching paths, not on the size of the set. Set must be ordered by the natural order of strings,
+   * otherwise, and also for negated, case insensitive or basename patterns, the whole set is scanned.
+   * </p>
+   *
+   * @param paths sorted set of paths.
+   * @return stream of the matching paths.
+   */
+  public Stream<String> select(NavigableSet<String> paths) {
+    Objects.requireNonNull(paths);
+    List<String[]> ranges = this.ranges(paths);
+    Stream<String> candidates = ranges == null ? paths.stream() : ranges.stream().flatMap(range -> {
+      return (range[1] == null ? paths.tailSet(range[0], true) : paths.subSet(range[0], true, range[1], false)).stream();
+    });
+    return candidates.filter(this::match);
+  }
+
+  /**
+   * <p>
+   * Returns entries of the sorted map, which keys match the pattern, in the order of the map.
+   * </p>
+   * <p>
+   * Same as {@link #select(NavigableSet)}, only the ranges of the map, which start with the literal prefixes of the
+   * pattern, are scanned.
+   * </p>
+   *
+   * @param <V> type of the values.
+   * @param paths sorted map, which keys are paths.
+   * @return stream of the entries with matching keys.
+   */
+  public <V> Stream<Map.Entry<String, V>> select(NavigableMap<String, V> paths) {
+    Objects.requireNonNull(paths);
+    List<String[]> ranges = this.ranges(paths.navigableKeySet());
+    Stream<Map.Entry<String, V>> candidates = ranges == null ? paths.entrySet().stream()
+        : ranges.stream().flatMap(range -> {
+          return (range[1] == null ? paths.tailMap(range[0], true) : paths.subMap(range[0], true, range[1], false))
+              .entrySet().stream();
+        });
+    return candidates.filter(entry -> this.match(entry.getKey()));
+  }
+
+  // sorted disjoint ranges [from, to) of the keys, which may match the pattern, to is null if the range is unbounded.
+  // Returns null if all keys have to be scanned.
+  private List<String[]> ranges(NavigableSet<String> keys) {
+    if (keys.comparator() != null || !SEP.equals("/")) {
+      return null;
+    }
+    List<String> prefixes = this.rangePrefixes(prefix -> {
+      String key = keys.ceiling(prefix);
+      return key != null && key.startsWith(prefix);
+    });
+    if (prefixes == null) {
+      return null;
+    }
+    List<String[]> result = new ArrayList<>();
+    for (String prefix : prefixes) {
+      // every string, which starts with the prefix, is less than the prefix with the last char incremented
+      String to = StringUtils.stripEnd(prefix, String.valueOf(Character.MAX_VALUE));
+      to = to.isEmpty() ? null : to.substring(0, to.length() - 1) + (char) (to.charAt(to.length() - 1) + 1);
+      result.add(new String[] {prefix, to});
+    }
+    return result;
+  }
+
+  // sorted prefixes of the paths, which may match the pattern, none of them starts with another one. Returns null if
+  // all paths have to be scanned. Predicate tells if some path starts with the string, repeated slashes are followed
+  // only if they are there.
+  List<String> rangePrefixes(Predicate<String> hasPrefix) {
+    if (this.comment) {
+      return Collections.emptyList();
+    }
+    if (!this.isIndexable() || this.baseTrie != null) {
+      return null;
+    }
+    List<String> prefixes = new ArrayList<>();
+    for (MinimatchPattern[] row : this.set) {
+      List<String> pieces = rangePieces(row);
+      prefixes(hasPrefix, pieces.get(0), pieces, 1, prefixes);
+    }
+    if (prefixes.contains("")) {
+      return null;
+    }
+
+    // prefixes, which start with other prefixes, are in their ranges already
+    Collections.sort(prefixes);
+    List<String> result = new ArrayList<>();
+    for (String prefix : prefixes) {
+      if (result.isEmpty() || !prefix.startsWith(result.get(result.size() - 1))) {
+        result.add(prefix);
+      }
+    }
+    return result;
+  }
+
+  // leading literal segments of the row, followed by the literal prefix of the next segment, if some segment follows.
+  // Every path matched by the row starts with the pieces joined by one or more slashes.
+  private static List<String> rangePieces(MinimatchPattern[] row) {
+    List<String> result = new ArrayList<>();
+    int i = 0;
+    // empty segments match only the start of the absolute path or a trailing slash
+    while (i < row.length && row[i].isString() && (i == 0 || !row[i].asString().isEmpty())) {
+      result.add(row[i++].asString());
+    }
+    if (i < row.length && row[i] != GLOBSTAR) {
+      String prefix = row[i].isMatcher() ? row[i].asMatcher().getLiteralPrefix() : null;
+      result.add(prefix != null ? prefix : "");
+    }
+    if (result.isEmpty()) {
+      result.add("");
+    }
+    return result;
+  }
+
+  // adds prefixes of the keys, which are made of the pieces joined by one or more slashes, repeated slashes are
+  // followed only if some key has them, so it takes one lookup of the keys per piece
+  private static void prefixes(Predicate<String> hasPrefix, String prefix, List<String> pieces, int next,
+      List<String> result) {
+    if (next == pieces.size()) {
+      result.add(prefix);
+      return;
+    }
+    String separator = prefix + "/";
+    if (hasPrefix.test(separator + "/")) {
+      prefixes(hasPrefix, separator, pieces, next, result);
+    }
+    prefixes(hasPrefix, separator + pieces.get(next), pieces, next + 1, result);
+  }
+
   /**
    * <p>
    * Return {@code true} if the path matches the pattern, or {@code false} otherwise.
@@ -918,62 +1376,148 @@ public class Minimatch {
     return match(path, false);
   }
 
-  private boolean match(String path, boolean partial) {
-    debug(false, "match", path, this.pattern);
+  /**
+   * <p>
+   * Return {@code true} if the tokenized path matches the pattern, or {@code false} otherwise.
+   * </p>
+   * <p>
+   * Result is the same as for {@link #match(String)}, but the path is not split again, so one {@link PathTokens}
+   * object can be tested against many patterns.
+   * </p>
+   *
+   * @param path path tokenized with {@link PathTokens#of(CharSequence)}.
+   * @return {@code true} if the path matches the pattern, or {@code false} otherwise.
+   */
+  public boolean match(PathTokens path) {
+    Objects.requireNonNull(path);
+    return match(path, false);
+  }
+
+  /**
+   * <p>
+   * Return {@code true} if the path matches the pattern, or {@code false} otherwise.
+   * </p>
+   * <p>
+   * If {@code partial} is set, path may run out before the pattern, e.g. {@code /a/b} matches the start of
+   * {@code /*&#47;b/*&#47;d}. It's useful when a file tree is walked: directories, which don't match partially, can be
+   * skipped. See also {@link #matchState()}.
+   * </p>
+   *
+   * @param path path to match.
+   * @param partial {@code true} if the path may be a prefix of a matching path.
+   * @return {@code true} if the path matches the pattern, or {@code false} otherwise.
+   */
+  public boolean match(String path, boolean partial) {
+    Objects.requireNonNull(path);
+    // windows: need to use /, not \
+    if (!SEP.equals("/")) {
+      path = StringUtils.replace(path, SEP, "/");
+    }
+
+    // PORT_INFO: paths, which can't match any row, because of their depth or extension, are rejected before they are
+    // split, see analyze()
+    if (!partial && !this.comment && !this.empty && this.rejects(path)) {
+      return !hasOption(this.options, FLIP_NEGATE) && this.negate;
+    }
+
+    // treat the test path as a set of pathparts.
+    // PORT_INFO: path parts are kept as offsets into the path, instead of splitting it with slashSplit regexp
+    return match(PathTokens.tokenize(path), partial);
+  }
+
+  // same as match(path), but takes a path with / separators, which may be a view of some buffer
+  boolean matchPath(CharSequence path) {
+    if (!this.comment && !this.empty && this.rejects(path)) {
+      return !hasOption(this.options, FLIP_NEGATE) && this.negate;
+    }
+    return this.match(PathTokens.tokenize(path), false);
+  }
+
+  // true if no row can match the path
+  private boolean rejects(CharSequence path) {
+    String ext = this.extension;
+    if (ext != null) {
+      // a/*.js also matches a/b.js/
+      int end = path.length();
+      while (end > 0 && path.charAt(end - 1) == '/') {
+        end--;
+      }
+      int start = end - ext.length();
+      if (start < 0) {
+        return true;
+      }
+      for (int i = 0; i < ext.length(); i++) {
+        if (path.charAt(start + i) != ext.charAt(i)) {
+          return true;
+        }
+      }
+    }
+    int min = this.minDepth;
+    int max = this.maxDepth;
+    if (min > 1 || max < Integer.MAX_VALUE) {
+      // same as the number of segments of PathTokens, where repeated slashes are a single separator
+      int depth = 1;
+      for (int i = 0, length = path.length(); i < length; i++) {
+        if (path.charAt(i) == '/' && (i == 0 || path.charAt(i - 1) != '/') && ++depth > max) {
+          return true;
+        }
+      }
+      return depth < min;
+    }
+    return false;
+  }
+
+  /**
+   * Same as {@link #match(String, boolean)}, but takes a tokenized path.
+   *
+   * @param f path tokenized with {@link PathTokens#of(CharSequence)}.
+   * @param partial {@code true} if the path may be a prefix of a matching path.
+   * @return {@code true} if the path matches the pattern, or {@code false} otherwise.
+   */
+  public boolean match(PathTokens f, boolean partial) {
+    Objects.requireNonNull(f);
+    boolean verbose = hasOption(options, DEBUG);
+    if (verbose) {
+      debug(false, "match", f.path(), this.pattern);
+    }
     // short-circuit in the case of busted things.
     // comments, etc.
     if (this.comment) {
       return false;
     }
     if (this.empty) {
-      return path.isEmpty();
+      return f.path().length() == 0;
     }
 
-    if (path.equals("/") && partial) {
+    if (partial && f.size() == 2 && f.path().length() == 1) {
+      // path is "/"
       return true;
     }
 
     int options = this.options;
 
-    // windows: need to use /, not \
-    if (!SEP.equals("/")) {
-      path = StringUtils.replace(path, SEP, "/");
+    if (verbose) {
+      debug(false, this.pattern, "split", f);
     }
 
-    // treat the test path as a set of pathparts.
-    String[] f = slashSplit.split(path, -1);
-    debug(false, this.pattern, "split", Arrays.toString(f));
-
     // just ONE of the pattern sets in this.set needs to match
     // in order for it to be valid. If negating, then just one
     // match means that we have failed.
     // Either way, return on the first hit.
 
-    MinimatchPattern[][] set = this.set;
-    debug(false, this.pattern, "set", Arrays.deepToString(set));
-
-    // Find the basename of the path by looking for the last non-empty segment
-    String filename = "";
-    for (int i = f.length - 1; i >= 0; i--) {
-      filename = f[i];
-      if (!filename.isEmpty()) {
-        break;
-      }
+    if (verbose) {
+      debug(false, this.pattern, "set", Arrays.deepToString(this.matchSet));
     }
 
-    for (int i = 0; i < set.length; i++) {
-      MinimatchPattern[] p = set[i];
-      String[] file = f;
-      if (hasOption(options, MATCH_BASE) && p.length == 1) {
-        file = new String[] {filename};
-      }
-      boolean hit = this.matchOne(file, p, partial);
-      if (hit) {
-        if (hasOption(options, FLIP_NEGATE)) {
-          return true;
-        }
-        return !this.negate;
+    // PORT_INFO: rows are not matched one by one, they are walked together in a trie, see SegmentTrie. Rows matched
+    // against the basename of the path (the last non-empty segment) are kept in a separate trie.
+    boolean hit = this.matchTrie(this.matchTrie, f, partial)
+        || (this.baseTrie != null && this.matchTrie(this.baseTrie, f.basename(), partial));
+    if (hit) {
+      if (hasOption(options, FLIP_NEGATE)) {
+        return true;
       }
+      return !this.negate;
     }
 
     // didn't get any hits. this is success if it's a negative
@@ -984,31 +1528,175 @@ public class Minimatch {
     return this.negate;
   }
 
+  /**
+   * <p>
+   * Returns leading segments of every matching path, which are literals in the pattern, e.g. {@code [src, main]} for
+   * {@code src/main/**}{@code /*.js}. Only segments, which are file names, are included: list stops before an empty
+   * segment of the absolute path, {@code .} or {@code ..}.
+   * </p>
+   * <p>
+   * List is empty if there is no such prefix, or if the pattern is negated, case insensitive or matched against the
+   * basename.
+   * </p>
+   *
+   * @return literal leading segments of every matching path.
+   */
+  public List<String> getLiteralBase() {
+    return this.literalBase;
+  }
+
+  /**
+   * <p>
+   * Returns minimum number of segments of a matching path, e.g. {@code 2} for {@code src/**}{@code /*.js}. Path is
+   * split on {@code /}, so {@code a/b/} has three segments, the last one is empty.
+   * </p>
+   * <p>
+   * Returns {@code 0} if the pattern is negated, unless {@link #FLIP_NEGATE} is set.
+   * </p>
+   *
+   * @return minimum number of segments of a matching path.
+   */
+  public int getMinDepth() {
+    return this.describesMatches() ? this.minDepth : 0;
+  }
+
+  /**
+   * <p>
+   * Returns maximum number of segments of a matching path (see {@link #getMinDepth()}), or {@link Integer#MAX_VALUE} if
+   * it's unbounded, e.g. for patterns with {@code **}.
+   * </p>
+   * <p>
+   * Returns {@link Integer#MAX_VALUE} if the pattern is negated, unless {@link #FLIP_NEGATE} is set.
+   * </p>
+   *
+   * @return maximum number of segments of a matching path.
+   */
+  public int getMaxDepth() {
+    return this.describesMatches() ? this.maxDepth : Integer.MAX_VALUE;
+  }
+
+  /**
+   * <p>
+   * Returns extension, which the last non-empty segment of every matching path ends with, including the dot, e.g.
+   * {@code .js} for {@code src/*.{min,map}.js}.
+   * </p>
+   * <p>
+   * Returns {@code null} if the extension is not fixed, or if the pattern is case insensitive or negated, unless
+   * {@link #FLIP_NEGATE} is set.
+   * </p>
+   *
+   * @return extension of every matching path or {@code null}.
+   */
+  public String getExtension() {
+    return this.describesMatches() ? this.extension : null;
+  }
+
+  /**
+   * <p>
+   * Returns literals, which every matching path contains, e.g. {@code [src, .test.js]} for
+   * {@code src/{a,b}/**}{@code /*.test.js}.
+   * </p>
+   * <p>
+   * List is empty if there are no such literals, or if the pattern is case insensitive or negated, unless
+   * {@link #FLIP_NEGATE} is set.
+   * </p>
+   *
+   * @return literals of every matching path.
+   */
+  public List<String> getRequiredLiterals() {
+    return this.describesMatches() ? this.requiredLiterals : Collections.<String>emptyList();
+  }
+
+  // true if the pattern matches exactly the paths, which are matched by the rows of the set
+  private boolean describesMatches() {
+    return !this.negate || hasOption(this.options, FLIP_NEGATE);
+  }
+
+  /**
+   * <p>
+   * Returns match state of the path without any segments, which is advanced with {@link MatchState#next(String)} one
+   * segment at a time.
+   * </p>
+   * <p>
+   * When a file tree is walked, state of every child is derived from the state of its directory, so the path is not
+   * matched again from the first segment for every file.
+   * </p>
+   *
+   * @return state of the path without any segments.
+   */
+  public MatchState matchState() {
+    return new MatchState(this);
+  }
+
+  // same as matchOne for every row in the trie, leading segments shared by many rows are matched only once
+  private boolean matchTrie(SegmentTrie node, PathTokens file, boolean partial) {
+    int fi = node.depth;
+    int fl = file.size();
+    if (fi == fl) {
+      // ran out of file, it's a hit if some row ends here too, or if it's a partial match
+      return node.end || partial;
+    }
+    if (node.end && fi == fl - 1 && file.isEmpty(fi)) {
+      // a/* should match a/b/
+      return true;
+    }
+    for (MinimatchPattern[] row : node.globstars) {
+      if (this.matchOne(file, fi, row, fi, partial, null)) {
+        return true;
+      }
+    }
+    SegmentTrie literal = node.literal(file, fi);
+    if (literal != null && this.matchTrie(literal, file, partial)) {
+      return true;
+    }
+    boolean noCase = hasOption(this.options, NO_CASE);
+    for (SegmentTrie child : node.others.values()) {
+      MinimatchPattern p = child.segment;
+      boolean hit = p.isString() ? file.equals(fi, p.asString(), noCase) : matchSegment(p, file, fi);
+      if (hit && this.matchTrie(child, file, partial)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   // set partial to true to test if, for example,
   // "/a/b" matches the start of "/*/b/*/d"
   // Partial means, if you run out of file before you run
   // out of pattern, then that's fine, as long as all
   // the parts match.
-  private boolean matchOne(String[] file, MinimatchPattern[] pattern, boolean partial) {
+  // PORT_INFO: instead of slicing arrays for every globstar attempt, matching starts from the fi and pi offsets into
+  // the original arrays. Failed (fi, pi) states are remembered in the failed set, which is shared between all nested
+  // globstar attempts, so patterns with several globstars are not backtracking without limit.
+  private boolean matchOne(PathTokens file, int fi, MinimatchPattern[] pattern, int pi, boolean partial,
+      BitSet failed) {
     int options = this.options;
+    boolean verbose = hasOption(options, DEBUG);
 
-    debug("matchOne \n  file: %s\n  pattern: %s", Arrays.toString(file), Arrays.toString(pattern));
+    if (verbose) {
+      debug("matchOne \n  file: %s\n  pattern: %s", file, Arrays.toString(pattern));
+    }
 
-    debug(false, "matchOne", file.length, pattern.length);
+    if (verbose) {
+      debug(false, "matchOne", fi, file.size(), pi, pattern.length);
+    }
 
-    int fi = 0;
-    int pi = 0;
-    int fl = file.length;
+    int fl = file.size();
     int pl = pattern.length;
     for (; (fi < fl) && (pi < pl); fi++, pi++) {
-      debug(false, "matchOne loop");
+      if (verbose) {
+        debug(false, "matchOne loop");
+      }
       MinimatchPattern p = pattern[pi];
-      String f = file[fi];
 
-      debug(false, Arrays.toString(pattern), p, f);
+      if (verbose) {
+        debug(false, Arrays.toString(pattern), p, file.segment(fi));
+      }
 
       if (p == GLOBSTAR) {
-        debug(false, "GLOBSTAR", Arrays.toString(pattern), p, f);
+        if (verbose) {
+          debug(false, "GLOBSTAR", Arrays.toString(pattern), p, file.segment(fi));
+        }
 
         // "**"
         // a/**/b/**/c would match the following:
@@ -1035,7 +1723,9 @@ public class Minimatch {
         int fr = fi;
         int pr = pi + 1;
         if (pr == pl) {
-          debug(false, "** at the end");
+          if (verbose) {
+            debug(false, "** at the end");
+          }
           // a ** at the end will just swallow the rest.
           // We have found a match.
           // however, it will not swallow /.x, unless
@@ -1043,8 +1733,7 @@ public class Minimatch {
           // . and .. are *never* matched by **, for explosively
           // exponential reasons.
           for (; fi < fl; fi++) {
-            if (file[fi].equals(".") || file[fi].equals("..")
-                || (!hasOption(options, DOT) && file[fi].startsWith("."))) {
+            if (file.isDotOrDoubleDot(fi) || (!hasOption(options, DOT) && file.isDot(fi))) {
               return false;
             }
           }
@@ -1052,28 +1741,37 @@ public class Minimatch {
         }
 
         // ok, let's see if we can swallow whatever we can.
+        if (failed == null) {
+          failed = new BitSet();
+        }
         while (fr < fl) {
-          String swallowee = file[fr];
-
-          debug(false, "\nglobstar while", Arrays.toString(file), fr, Arrays.toString(pattern), pr, swallowee);
+          if (verbose) {
+            debug(false, "\nglobstar while", file, fr, Arrays.toString(pattern), pr, file.segment(fr));
+          }
 
-          // MINIMATCH_XXX remove this slice. Just pass the start index.
-          if (this.matchOne(Arrays.copyOfRange(file, fr, file.length), Arrays.copyOfRange(pattern, pr, pattern.length),
-              partial)) {
-            debug(false, "globstar found match!", fr, fl, swallowee);
+          int state = fr * (pl + 1) + pr;
+          if (!failed.get(state) && this.matchOne(file, fr, pattern, pr, partial, failed)) {
+            if (verbose) {
+              debug(false, "globstar found match!", fr, fl, file.segment(fr));
+            }
             // found a match.
             return true;
           } else {
+            failed.set(state);
+
             // can't swallow "." or ".." ever.
             // can only swallow ".foo" when explicitly asked.
-            if (swallowee.equals(".") || swallowee.equals("..")
-                || (!hasOption(options, DOT) && swallowee.startsWith("."))) {
-              debug(false, "dot detected!", Arrays.toString(file), fr, Arrays.toString(pattern), pr);
+            if (file.isDotOrDoubleDot(fr) || (!hasOption(options, DOT) && file.isDot(fr))) {
+              if (verbose) {
+                debug(false, "dot detected!", file, fr, Arrays.toString(pattern), pr);
+              }
               break;
             }
 
             // ** swallows a segment, and continue.
-            debug(false, "globstar swallow a segment, and continue");
+            if (verbose) {
+              debug(false, "globstar swallow a segment, and continue");
+            }
             fr++;
           }
         }
@@ -1083,7 +1781,9 @@ public class Minimatch {
         // If there's more *pattern* left, then
         if (partial) {
           // ran out of file
-          debug(false, "\n>>> no match, partial?", Arrays.toString(file), fr, Arrays.toString(pattern), pr);
+          if (verbose) {
+            debug(false, "\n>>> no match, partial?", file, fr, Arrays.toString(pattern), pr);
+          }
           if (fr == fl) {
             return true;
           }
@@ -1096,15 +1796,15 @@ public class Minimatch {
       // patterns with magic have been turned into regexps.
       boolean hit = false;
       if (p.isString()) {
-        if (hasOption(options, NO_CASE)) {
-          hit = f.equalsIgnoreCase(p.asString());
-        } else {
-          hit = f.equals(p.asString());
+        hit = file.equals(fi, p.asString(), hasOption(options, NO_CASE));
+        if (verbose) {
+          debug(false, "string match", p, file.segment(fi), hit);
         }
-        debug(false, "string match", p, f, hit);
       } else {
-        hit = p.isPattern() && p.asPattern().matcher(f).matches();
-        debug(false, "pattern match", p, f, hit);
+        hit = matchSegment(p, file, fi);
+        if (verbose) {
+          debug(false, "pattern match", p, file.segment(fi), hit);
+        }
       }
 
       if (!hit) {
@@ -1132,13 +1832,13 @@ public class Minimatch {
       // ran out of file, but still had pattern left.
       // this is ok if we're doing the match as part of
       // a glob fs traversal.
-      return false;
+      return partial;
     } else if (pi == pl) {
       // ran out of pattern, still have file left.
       // this is only acceptable if we're on the very last
       // empty segment of a file with a trailing slash.
       // a/* should match a/b/
-      boolean emptyFileEnd = (fi == fl - 1) && (file[fi].isEmpty());
+      boolean emptyFileEnd = (fi == fl - 1) && (file.isEmpty(fi));
       return emptyFileEnd;
     }
 
@@ -1146,6 +1846,214 @@ public class Minimatch {
     throw new RuntimeException("wtf?");
   }
 
+  // magic segments are matched against the region of the path, without extracting it
+  private static boolean matchSegment(MinimatchPattern p, PathTokens file, int i) {
+    if (p.isAlternatives()) {
+      return p.asAlternatives().matches(file, i);
+    }
+    if (p.isSequence()) {
+      return p.asSequence().matches(file.path(), file.start(i), file.end(i));
+    }
+    if (p.isMatcher()) {
+      return p.asMatcher().matches(file.path(), file.start(i), file.end(i));
+    }
+    return p.isPattern() && p.asPattern().matcher(file.path()).region(file.start(i), file.end(i)).matches();
+  }
+
+  // PORT_INFO: methods below are not part of the original api, they describe compiled pattern for indexes like
+  // PatternSet, which have to find candidate patterns without running them.
+
+  int getOptions() {
+    return options;
+  }
+
+  // true if the pattern can match only when one of its rows matches the path
+  boolean isIndexable() {
+    return !comment && !empty && !negate && !hasOption(options, NO_CASE);
+  }
+
+  // true if the pattern can never match anything
+  boolean isComment() {
+    return comment;
+  }
+
+  // true if the pattern matches only an empty path
+  boolean isEmpty() {
+    return empty;
+  }
+
+  boolean isNegated() {
+    return negate;
+  }
+
+  // positions of MatchState are pairs of row index and position in the row. Position is index of the next segment of
+  // the row multiplied by 2, plus 1 if it's a globstar, which has already swallowed some segments. Row, which has
+  // matched and then consumed a trailing empty segment, is at (length + 1) * 2.
+
+  int[] startPositions() {
+    int[] result = new int[matchSet.length * 2];
+    int k = 0;
+    for (int r = 0; r < matchSet.length; r++) {
+      if (!isBaseRow(matchSet[r])) {
+        result[k++] = r;
+        result[k++] = 0;
+      }
+    }
+    return k == result.length ? result : Arrays.copyOf(result, k);
+  }
+
+  // positions after the segment, same as matchOne does it for every row, but one segment at a time
+  int[] advance(int[] positions, PathTokens segment) {
+    if (positions.length == 0) {
+      return positions;
+    }
+    Positions result = new Positions(this.positionOffsets);
+    for (int i = 0; i < positions.length; i += 2) {
+      int r = positions[i];
+      this.advance(r, matchSet[r], positions[i + 1] >> 1, segment, result);
+    }
+    return result.toArray();
+  }
+
+  private void advance(int r, MinimatchPattern[] row, int pi, PathTokens file, Positions result) {
+    int pl = row.length;
+    if (pi > pl) {
+      // nothing can follow the trailing empty segment
+      return;
+    }
+    if (pi == pl) {
+      // a/* should match a/b/
+      if (file.isEmpty(0)) {
+        result.add(r, (pl + 1) * 2);
+      }
+      return;
+    }
+    MinimatchPattern p = row[pi];
+    if (p == GLOBSTAR) {
+      // can't swallow "." or ".." ever.
+      // can only swallow ".foo" when explicitly asked.
+      if (!file.isDotOrDoubleDot(0) && (hasOption(options, DOT) || !file.isDot(0))) {
+        result.add(r, pi * 2 + 1);
+      }
+      if (pi + 1 < pl) {
+        // rest of the pattern after ** starts with this segment
+        this.advance(r, row, pi + 1, file, result);
+      }
+      return;
+    }
+    boolean hit = p.isString() ? file.equals(0, p.asString(), hasOption(options, NO_CASE)) : matchSegment(p, file, 0);
+    if (hit) {
+      result.add(r, (pi + 1) * 2);
+    }
+  }
+
+  // true if some row matches the path, which led to the positions
+  boolean accepts(int[] positions) {
+    for (int i = 0; i < positions.length; i += 2) {
+      MinimatchPattern[] row = matchSet[positions[i]];
+      int pi = positions[i + 1] >> 1;
+      boolean swallowed = (positions[i + 1] & 1) == 1;
+      if (pi >= row.length || (swallowed && pi == row.length - 1)) {
+        // ** at the end swallows the rest
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // true if some row has segments left, so it can match paths below the path, which led to the positions
+  boolean continues(int[] positions) {
+    for (int i = 0; i < positions.length; i += 2) {
+      if (positions[i + 1] >> 1 < matchSet[positions[i]].length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // true if the pattern has rows, which are matched against the basename
+  boolean hasBaseRows() {
+    return baseTrie != null;
+  }
+
+  boolean matchBase(String basename, boolean partial) {
+    return baseTrie != null && this.matchTrie(baseTrie, PathTokens.tokenize(basename), partial);
+  }
+
+  private boolean isBaseRow(MinimatchPattern[] row) {
+    return hasOption(options, MATCH_BASE) && row.length == 1;
+  }
+
+  int getRowCount() {
+    return set.length;
+  }
+
+  // true if the row is matched against the basename of the path
+  boolean isBaseRow(int row) {
+    return isBaseRow(set[row]);
+  }
+
+  // leading literal segments, which must be equal to the leading segments of a matching path
+  List<String> getLiteralPrefix(int row) {
+    List<String> result = new ArrayList<>();
+    for (MinimatchPattern p : set[row]) {
+      if (!p.isString()) {
+        break;
+      }
+      result.add(p.asString());
+    }
+    return result;
+  }
+
+  // leading literal segments shared by all rows, so every matching path starts with them. Segments, which are not file
+  // names, like "" of the absolute pattern or "..", are never included. Empty if patterns are not matched literally.
+  private List<String> getCommonLiteralPrefix() {
+    if (!isIndexable() || baseTrie != null || set.length == 0) {
+      return Collections.emptyList();
+    }
+    List<String> result = getLiteralPrefix(0);
+    for (int row = 1; row < set.length && !result.isEmpty(); row++) {
+      List<String> prefix = getLiteralPrefix(row);
+      int common = 0;
+      while (common < result.size() && common < prefix.size() && result.get(common).equals(prefix.get(common))) {
+        common++;
+      }
+      result = result.subList(0, common);
+    }
+    for (int i = 0; i < result.size(); i++) {
+      String segment = result.get(i);
+      if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+        return Collections.unmodifiableList(new ArrayList<>(result.subList(0, i)));
+      }
+    }
+    return Collections.unmodifiableList(new ArrayList<>(result));
+  }
+
+  // extension (see extension method) of the last non-empty segment of any matching path, or null if it's not fixed
+  String getExtension(int row) {
+    MinimatchPattern last = set[row][set[row].length - 1];
+    if (last.isString()) {
+      String s = last.asString();
+      return s.isEmpty() ? null : extension(s, 0, s.length());
+    }
+    String suffix = last.isMatcher() ? last.asMatcher().getLiteralSuffix()
+        : last.isSequence() ? last.asSequence().getLiteralSuffix() : null;
+    if (suffix == null || suffix.indexOf('.') < 0) {
+      return null;
+    }
+    return extension(suffix, 0, suffix.length());
+  }
+
+  // part of the segment starting from the last dot, or empty string if there is no dot
+  static String extension(CharSequence s, int from, int to) {
+    for (int i = to - 1; i >= from; i--) {
+      if (s.charAt(i) == '.') {
+        return s.subSequence(i, to).toString();
+      }
+    }
+    return "";
+  }
+
   // replace stuff like \* with *
   private static String globUnescape(String s) {
     return globUnscaper.matcher(s).replaceAll("$1");
@@ -1156,7 +2064,7 @@ public class Minimatch {
   }
 
   // PORT_INFO: shortcut method to check if option is set
-  private static boolean hasOption(int options, int o) {
+  static boolean hasOption(int options, int o) {
     return (options & o) == o;
   }
 
@@ -1249,6 +2157,35 @@ public class Minimatch {
       this.pattern = pattern;
     }
 
+    private MinimatchPattern(SegmentMatcher matcher) {
+      this.pattern = matcher;
+    }
+
+    private MinimatchPattern(Alternatives alternatives) {
+      this.pattern = alternatives;
+    }
+
+    private MinimatchPattern(SequenceMatcher sequence) {
+      this.pattern = sequence;
+    }
+
+    // patterns with equal keys match the same segments
+    private Object key() {
+      if (isString()) {
+        return "=" + pattern;
+      }
+      if (isAlternatives()) {
+        return asAlternatives().keys;
+      }
+      if (isSequence()) {
+        return pattern;
+      }
+      if (src != null) {
+        return "~" + src;
+      }
+      return this;
+    }
+
     private boolean isString() {
       return pattern != null && pattern instanceof String;
     }
@@ -1271,6 +2208,39 @@ public class Minimatch {
       return (Pattern) pattern;
     }
 
+    private boolean isMatcher() {
+      return pattern != null && pattern instanceof SegmentMatcher;
+    }
+
+    private SegmentMatcher asMatcher() {
+      if (!isMatcher()) {
+        return null;
+      }
+      return (SegmentMatcher) pattern;
+    }
+
+    private boolean isSequence() {
+      return pattern != null && pattern instanceof SequenceMatcher;
+    }
+
+    private SequenceMatcher asSequence() {
+      if (!isSequence()) {
+        return null;
+      }
+      return (SequenceMatcher) pattern;
+    }
+
+    private boolean isAlternatives() {
+      return pattern != null && pattern instanceof Alternatives;
+    }
+
+    private Alternatives asAlternatives() {
+      if (!isAlternatives()) {
+        return null;
+      }
+      return (Alternatives) pattern;
+    }
+
     @Override
     public String toString() {
       return "{pattern=" + pattern + ", hasMagic=" + hasMagic + ", glob=" + glob + ", src=" + src + "}";
@@ -1278,4 +2248,158 @@ public class Minimatch {
 
   }
 
+  // segment, which matches if any of its alternatives matches. Literals are looked up in a hash set, other patterns are
+  // tried one by one.
+  private static class Alternatives {
+
+    private final Set<Object> keys = new HashSet<>();
+    private final Set<String> literals = new HashSet<>();
+    private final List<MinimatchPattern> others = new ArrayList<>();
+    private final boolean noCase;
+    private int minLength = Integer.MAX_VALUE;
+    private int maxLength = -1;
+
+    private Alternatives(boolean noCase) {
+      this.noCase = noCase;
+    }
+
+    private static Alternatives of(List<MinimatchPattern[]> rows, int k, int options) {
+      Alternatives result = new Alternatives(hasOption(options, NO_CASE));
+      for (MinimatchPattern[] row : rows) {
+        if (row[k].isAlternatives()) {
+          for (MinimatchPattern p : row[k].asAlternatives().all()) {
+            result.add(p);
+          }
+        } else {
+          result.add(row[k]);
+        }
+      }
+      return result;
+    }
+
+    private void add(MinimatchPattern p) {
+      if (!keys.add(p.key())) {
+        return;
+      }
+      if (p.isString() && !noCase) {
+        String literal = p.asString();
+        literals.add(literal);
+        minLength = Math.min(minLength, literal.length());
+        maxLength = Math.max(maxLength, literal.length());
+      } else {
+        others.add(p);
+      }
+    }
+
+    private List<MinimatchPattern> all() {
+      List<MinimatchPattern> result = new ArrayList<>(others);
+      for (String literal : literals) {
+        result.add(new MinimatchPattern(literal));
+      }
+      return result;
+    }
+
+    private boolean matches(PathTokens file, int i) {
+      int length = file.end(i) - file.start(i);
+      if (length >= minLength && length <= maxLength && literals.contains(file.segment(i))) {
+        return true;
+      }
+      for (MinimatchPattern p : others) {
+        if (p.isString() ? file.equals(i, p.asString(), noCase) : matchSegment(p, file, i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return "{literals=" + literals + ", others=" + others + "}";
+    }
+
+  }
+
+  // distinct positions of MatchState
+  private static class Positions {
+
+    private final int[] offsets;
+    private final BitSet seen = new BitSet();
+    private int[] positions = new int[8];
+    private int size;
+
+    private Positions(int[] offsets) {
+      this.offsets = offsets;
+    }
+
+    private void add(int row, int position) {
+      int id = offsets[row] + position;
+      if (seen.get(id)) {
+        return;
+      }
+      seen.set(id);
+      if (size + 2 > positions.length) {
+        positions = Arrays.copyOf(positions, positions.length * 2);
+      }
+      positions[size++] = row;
+      positions[size++] = position;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(positions, size);
+    }
+
+  }
+
+  // rows of the set, which share leading segments. Literal segments are found by hash lookup, other segments are tried
+  // one by one. Segments of every row are matched one to one with the path segments, so node depth is the index of the
+  // next path segment. Rest of the row after a globstar is matched with matchOne.
+  private static class SegmentTrie {
+
+    // segment, which leads to this node from the parent
+    private final MinimatchPattern segment;
+    private final int depth;
+    private final Map<String, SegmentTrie> literals = new HashMap<>(0);
+    // patterns with equal keys match the same segments, so they share a child
+    private final Map<Object, SegmentTrie> others = new LinkedHashMap<>(0);
+    // rows, which continue with a globstar after this node
+    private final List<MinimatchPattern[]> globstars = new ArrayList<>(0);
+    // true if some row ends here
+    private boolean end;
+
+    private SegmentTrie(MinimatchPattern segment, int depth) {
+      this.segment = segment;
+      this.depth = depth;
+    }
+
+    private void add(MinimatchPattern[] row, boolean noCase) {
+      SegmentTrie node = this;
+      for (MinimatchPattern p : row) {
+        if (p == GLOBSTAR) {
+          node.globstars.add(row);
+          return;
+        }
+        int depth = node.depth + 1;
+        if (p.isString() && !noCase) {
+          node = node.literals.computeIfAbsent(p.asString(), k -> new SegmentTrie(p, depth));
+        } else {
+          node = node.others.computeIfAbsent(p.key(), k -> new SegmentTrie(p, depth));
+        }
+      }
+      node.end = true;
+    }
+
+    private SegmentTrie literal(PathTokens file, int i) {
+      if (literals.isEmpty()) {
+        return null;
+      }
+      if (literals.size() == 1) {
+        // no need to extract the segment for a single literal
+        SegmentTrie only = literals.values().iterator().next();
+        return file.equals(i, only.segment.asString(), false) ? only : null;
+      }
+      return literals.get(file.segment(i));
+    }
+
+  }
+
 }
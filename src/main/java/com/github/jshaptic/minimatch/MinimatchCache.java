@@ -0,0 +1,252 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Bounded, thread-safe cache of compiled {@link Minimatch} objects, keyed by pattern and options.
+ * </p>
+ * <p>
+ * Entries are evicted in least-recently-used order once the cache grows over its maximum size. When several threads
+ * miss on the same key at the same time, only one of them compiles the pattern, the others wait for its result.
+ * </p>
+ * <p>
+ * Hits don't take any lock, so threads, which look up compiled patterns, don't wait for each other. Order of use is
+ * tracked with a clock, which moves only on misses, so patterns used between the same two misses are equally recent,
+ * and one of them is evicted first in no particular order. Misses take a single lock and look for the least recently
+ * used entry among all entries, which is cheap compared to compiling the pattern.
+ * </p>
+ * <p>
+ * Hit, miss and eviction counters are exposed to help sizing the cache.
+ * </p>
+ */
+public final class MinimatchCache {
+
+  /**
+   * Maximum number of compiled patterns kept by default.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  // guards changes of the entries, hits only read them
+  private final Object lock = new Object();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private volatile int maximumSize;
+  // moves by two on every miss, so entries used after a miss are more recent than the entry added by it
+  private volatile long clock;
+
+  /**
+   * Creates cache with the {@link #DEFAULT_MAXIMUM_SIZE default} maximum size.
+   */
+  public MinimatchCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Creates cache, which keeps at most {@code maximumSize} compiled patterns.
+   *
+   * @param maximumSize maximum number of compiled patterns, {@code 0} disables caching.
+   */
+  public MinimatchCache(int maximumSize) {
+    setMaximumSize(maximumSize);
+  }
+
+  /**
+   * Returns compiled {@link Minimatch} object for the pattern and options, compiling it if necessary.
+   *
+   * @param pattern pattern to use for matching.
+   * @param options various flags that can affect matching.
+   * @return compiled {@link Minimatch} object, shared between all callers with the same pattern and options.
+   */
+  public Minimatch get(String pattern, int options) {
+    Objects.requireNonNull(pattern);
+
+    Key key = new Key(pattern, options);
+    Entry entry = entries.get(key);
+    boolean created = false;
+    if (entry == null && maximumSize > 0) {
+      synchronized (lock) {
+        entry = entries.get(key);
+        if (entry == null && maximumSize > 0) {
+          entry = new Entry(clock + 1);
+          clock += 2;
+          entries.put(key, entry);
+          created = true;
+          evict();
+        }
+      }
+    }
+
+    if (entry == null) {
+      // caching is disabled
+      misses.increment();
+      return new Minimatch(pattern, options);
+    }
+
+    if (created) {
+      misses.increment();
+    } else {
+      entry.touch(clock);
+      hits.increment();
+    }
+
+    return entry.get(this, key);
+  }
+
+  /**
+   * Number of lookups, which were served by already compiled patterns.
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of lookups, which had to compile the pattern.
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of compiled patterns, which were dropped because the cache was full.
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Number of compiled patterns currently kept in the cache.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Maximum number of compiled patterns kept in the cache.
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Changes maximum number of compiled patterns kept in the cache, evicting least recently used ones if necessary.
+   *
+   * @param maximumSize maximum number of compiled patterns, {@code 0} disables caching.
+   */
+  public void setMaximumSize(int maximumSize) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("maximum size must not be negative: " + maximumSize);
+    }
+    synchronized (lock) {
+      this.maximumSize = maximumSize;
+      evict();
+    }
+  }
+
+  /**
+   * Removes all compiled patterns from the cache. Counters are not reset.
+   */
+  public void clear() {
+    synchronized (lock) {
+      entries.clear();
+    }
+  }
+
+  // must be called while holding the lock
+  private void evict() {
+    while (entries.size() > maximumSize) {
+      Map.Entry<Key, Entry> eldest = null;
+      for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+        if (eldest == null || e.getValue().accessed < eldest.getValue().accessed) {
+          eldest = e;
+        }
+      }
+      entries.remove(eldest.getKey());
+      evictions.increment();
+    }
+  }
+
+  private void discard(Key key, Entry entry) {
+    synchronized (lock) {
+      entries.remove(key, entry);
+    }
+  }
+
+  private static final class Key {
+
+    private final String pattern;
+    private final int options;
+    private final int hash;
+
+    private Key(String pattern, int options) {
+      this.pattern = pattern;
+      this.options = options;
+      this.hash = 31 * pattern.hashCode() + options;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return options == other.options && pattern.equals(other.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+  }
+
+  private static final class Entry {
+
+    private volatile Minimatch value;
+    // clock of the last use
+    private volatile long accessed;
+
+    private Entry(long accessed) {
+      this.accessed = accessed;
+    }
+
+    private void touch(long now) {
+      // most hits find the same value, so the shared line is only read
+      if (accessed < now) {
+        accessed = now;
+      }
+    }
+
+    private Minimatch get(MinimatchCache cache, Key key) {
+      Minimatch result = value;
+      if (result != null) {
+        return result;
+      }
+
+      synchronized (this) {
+        result = value;
+        if (result == null) {
+          try {
+            result = new Minimatch(key.pattern, key.options);
+          } catch (RuntimeException e) {
+            // don't keep broken patterns around, next lookup will try to compile it again
+            cache.discard(key, this);
+            throw e;
+          }
+          value = result;
+        }
+        return result;
+      }
+    }
+
+  }
+
+}
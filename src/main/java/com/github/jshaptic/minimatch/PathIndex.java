@@ -0,0 +1,416 @@
+package com.github.jshaptic.minimatch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Compact read-only set of paths, which can be queried with {@link Minimatch} patterns.
+ * </p>
+ * <p>
+ * Paths are sorted by their UTF-8 bytes and front-coded in blocks: the first path of a block is stored as is, and every
+ * other path stores only the length of the prefix it shares with the previous path and the rest of its bytes. All
+ * blocks are kept in a single {@code byte[]}, so deep trees with long common prefixes take a few bytes per path instead
+ * of a {@link String} object each.
+ * </p>
+ * <p>
+ * Query scans only the paths, which start with the literal prefixes of the pattern, e.g. {@code src/main/} and
+ * {@code src/test/} for {@code src/{main,test}/*.java}, see {@link Minimatch#select(java.util.NavigableSet)}. Paths are
+ * matched on the decoded bytes directly, only the matching paths are turned into strings.
+ * </p>
+ * <p>
+ * Paths must use {@code /} as a separator.
+ * </p>
+ */
+public final class PathIndex {
+
+  // number of paths in a block, the first one of them is stored without front coding
+  private static final int BLOCK_SIZE = 16;
+
+  private final byte[] data;
+  // start of every block in data
+  private final int[] blocks;
+  private final int size;
+
+  /**
+   * Creates index of the paths, duplicates are stored only once.
+   *
+   * @param paths paths to index.
+   */
+  public PathIndex(Collection<String> paths) {
+    byte[][] keys = new byte[paths.size()][];
+    int count = 0;
+    for (String path : paths) {
+      keys[count++] = Objects.requireNonNull(path).getBytes(StandardCharsets.UTF_8);
+    }
+    Arrays.sort(keys, PathIndex::compare);
+
+    Buffer buffer = new Buffer();
+    List<Integer> starts = new ArrayList<>();
+    byte[] previous = null;
+    int size = 0;
+    for (byte[] key : keys) {
+      if (previous != null && compare(previous, key) == 0) {
+        continue;
+      }
+      if (size % BLOCK_SIZE == 0) {
+        starts.add(buffer.length);
+        buffer.writeInt(key.length);
+        buffer.write(key, 0, key.length);
+      } else {
+        int shared = mismatch(previous, previous.length, key);
+        buffer.writeInt(shared);
+        buffer.writeInt(key.length - shared);
+        buffer.write(key, shared, key.length - shared);
+      }
+      previous = key;
+      size++;
+    }
+
+    this.data = Arrays.copyOf(buffer.bytes, buffer.length);
+    this.blocks = starts.stream().mapToInt(Integer::intValue).toArray();
+    this.size = size;
+  }
+
+  /**
+   * Returns number of distinct paths in the index.
+   *
+   * @return number of paths.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns number of bytes taken by the encoded paths and the block offsets.
+   *
+   * @return size of the index in bytes.
+   */
+  public long getEncodedSize() {
+    return data.length + (long) blocks.length * Integer.BYTES;
+  }
+
+  /**
+   * Returns all paths in the order of their UTF-8 bytes.
+   *
+   * @return stream of the paths.
+   */
+  public Stream<String> stream() {
+    return query(null);
+  }
+
+  /**
+   * <p>
+   * Returns paths, which match the pattern, in the order of their UTF-8 bytes.
+   * </p>
+   * <p>
+   * Only paths, which start with the literal prefixes of the pattern, are decoded and matched, so for selective
+   * patterns time depends on the number of matching paths, not on the size of the index. Negated, case insensitive
+   * and basename patterns are matched against all paths.
+   * </p>
+   *
+   * @param mm compiled pattern.
+   * @return stream of the matching paths.
+   */
+  public Stream<String> select(Minimatch mm) {
+    return query(Objects.requireNonNull(mm));
+  }
+
+  // paths matching the pattern, or all paths if it's null
+  private Stream<String> query(Minimatch mm) {
+    List<byte[]> prefixes;
+    if (mm == null) {
+      prefixes = Collections.singletonList(new byte[0]);
+    } else {
+      List<String> literals = mm.rangePrefixes(prefix -> {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        Cursor cursor = new Cursor();
+        return cursor.seek(bytes) && cursor.startsWith(bytes);
+      });
+      prefixes = new ArrayList<>();
+      if (literals == null) {
+        prefixes.add(new byte[0]);
+      } else {
+        for (String literal : literals) {
+          prefixes.add(literal.getBytes(StandardCharsets.UTF_8));
+        }
+        // ranges are disjoint, so paths come in the order of the index if ranges do
+        prefixes.sort(PathIndex::compare);
+      }
+    }
+    Iterator<String> iterator = new Matches(mm, prefixes);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+  }
+
+  // unsigned comparison of UTF-8 bytes
+  private static int compare(byte[] a, byte[] b) {
+    int n = Math.min(a.length, b.length);
+    for (int i = 0; i < n; i++) {
+      int c = (a[i] & 0xff) - (b[i] & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  // length of the common prefix
+  private static int mismatch(byte[] a, int length, byte[] b) {
+    int n = Math.min(length, b.length);
+    int i = 0;
+    while (i < n && a[i] == b[i]) {
+      i++;
+    }
+    return i;
+  }
+
+  // paths of the ranges, which match the pattern
+  private final class Matches implements Iterator<String> {
+
+    private final Minimatch mm;
+    private final Iterator<byte[]> prefixes;
+    private final Cursor cursor = new Cursor();
+    private final Ascii ascii = new Ascii();
+    private byte[] prefix;
+    private String next;
+
+    private Matches(Minimatch mm, List<byte[]> prefixes) {
+      this.mm = mm;
+      this.prefixes = prefixes.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null) {
+        if (prefix == null) {
+          if (!prefixes.hasNext()) {
+            return false;
+          }
+          prefix = prefixes.next();
+          if (!cursor.seek(prefix)) {
+            prefix = null;
+            continue;
+          }
+        } else if (!cursor.next()) {
+          prefix = null;
+          continue;
+        }
+        if (!cursor.startsWith(prefix)) {
+          prefix = null;
+          continue;
+        }
+        next = cursor.match(mm, ascii);
+      }
+      return true;
+    }
+
+    @Override
+    public String next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      String result = next;
+      next = null;
+      return result;
+    }
+
+  }
+
+  // position in the index with the decoded current path
+  private final class Cursor {
+
+    private byte[] key = new byte[64];
+    private int length;
+    // index of the current path
+    private int index = -1;
+    // start of the next path in data
+    private int position;
+
+    // moves to the first path, which is not less than the bytes, returns false if there is no such path
+    private boolean seek(byte[] bytes) {
+      // last block, which starts with a path not greater than the bytes
+      int low = 0;
+      int high = blocks.length - 1;
+      int block = 0;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (compareFirst(mid, bytes) <= 0) {
+          block = mid;
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      index = block * BLOCK_SIZE - 1;
+      position = blocks.length == 0 ? 0 : blocks[block];
+      while (next()) {
+        if (compareKey(bytes) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // decodes the next path, returns false if there are no more paths
+    private boolean next() {
+      if (index + 1 >= size) {
+        return false;
+      }
+      index++;
+      int shared = 0;
+      if (index % BLOCK_SIZE != 0) {
+        shared = readInt();
+      }
+      int rest = readInt();
+      if (shared + rest > key.length) {
+        key = Arrays.copyOf(key, Math.max(shared + rest, key.length * 2));
+      }
+      System.arraycopy(data, position, key, shared, rest);
+      position += rest;
+      length = shared + rest;
+      return true;
+    }
+
+    private boolean startsWith(byte[] bytes) {
+      return length >= bytes.length && mismatch(key, length, bytes) == bytes.length;
+    }
+
+    // current path if it matches the pattern, otherwise null
+    private String match(Minimatch mm, Ascii ascii) {
+      boolean isAscii = true;
+      for (int i = 0; i < length && isAscii; i++) {
+        isAscii = key[i] >= 0;
+      }
+      if (!isAscii) {
+        // chars have to be decoded
+        String path = new String(key, 0, length, StandardCharsets.UTF_8);
+        return mm == null || mm.matchPath(path) ? path : null;
+      }
+      ascii.bytes = key;
+      ascii.length = length;
+      return mm == null || mm.matchPath(ascii) ? ascii.toString() : null;
+    }
+
+    private int compareKey(byte[] bytes) {
+      int n = Math.min(length, bytes.length);
+      for (int i = 0; i < n; i++) {
+        int c = (key[i] & 0xff) - (bytes[i] & 0xff);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return length - bytes.length;
+    }
+
+    // compares the first path of the block with the bytes, without decoding it
+    private int compareFirst(int block, byte[] bytes) {
+      position = blocks[block];
+      int keyLength = readInt();
+      int n = Math.min(keyLength, bytes.length);
+      for (int i = 0; i < n; i++) {
+        int c = (data[position + i] & 0xff) - (bytes[i] & 0xff);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return keyLength - bytes.length;
+    }
+
+    // variable length int, 7 bits per byte
+    private int readInt() {
+      int result = 0;
+      for (int shift = 0;; shift += 7) {
+        byte b = data[position++];
+        result |= (b & 0x7f) << shift;
+        if (b >= 0) {
+          return result;
+        }
+      }
+    }
+
+  }
+
+  // ASCII bytes viewed as chars without copying them
+  private static final class Ascii implements CharSequence {
+
+    private byte[] bytes;
+    private int length;
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index >= length) {
+        throw new IndexOutOfBoundsException(String.valueOf(index));
+      }
+      return (char) bytes[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+  }
+
+  // growable array of encoded paths
+  private static final class Buffer {
+
+    private byte[] bytes = new byte[1024];
+    private int length;
+
+    private void writeInt(int value) {
+      while ((value & ~0x7f) != 0) {
+        writeByte((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      writeByte(value);
+    }
+
+    private void writeByte(int b) {
+      ensureCapacity(1);
+      bytes[length++] = (byte) b;
+    }
+
+    private void write(byte[] b, int from, int count) {
+      ensureCapacity(count);
+      System.arraycopy(b, from, bytes, length, count);
+      length += count;
+    }
+
+    private void ensureCapacity(int count) {
+      if (length + count > bytes.length) {
+        long capacity = Math.max((long) length + count, (long) bytes.length * 2);
+        if (capacity > Integer.MAX_VALUE - 8) {
+          if ((long) length + count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too many paths, encoded index exceeds 2GB");
+          }
+          capacity = Integer.MAX_VALUE - 8;
+        }
+        bytes = Arrays.copyOf(bytes, (int) capacity);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,231 @@
+package com.github.jshaptic.minimatch;
+
+import java.nio.file.FileSystems;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * Path split into segments. Segment boundaries are kept as offsets into the path, so no substrings are created.
+ * </p>
+ * <p>
+ * Splitting works exactly as {@code path.split("\\/+", -1)}: repeated slashes are treated as one, leading slash
+ * produces an empty first segment and trailing slash produces an empty last segment.
+ * </p>
+ * <p>
+ * Tokens are immutable and can be shared between threads. When the same path is tested against many patterns,
+ * tokenize it once with {@link #of(CharSequence)} and pass it to {@link Minimatch#match(PathTokens)}, so the path is
+ * not split again for every pattern.
+ * </p>
+ */
+public final class PathTokens {
+
+  private static final String SEP = FileSystems.getDefault().getSeparator();
+
+  private static final byte UNKNOWN = 0;
+  private static final byte YES = 1;
+  private static final byte NO = 2;
+
+  private final CharSequence path;
+  // start and end offsets of every segment
+  private final int[] bounds;
+  // both are computed on first use, racy initialization is fine, since results are always the same
+  private PathTokens basename;
+  private byte dotSegment = UNKNOWN;
+
+  private PathTokens(CharSequence path, int[] bounds) {
+    this.path = path;
+    this.bounds = bounds;
+  }
+
+  /**
+   * <p>
+   * Splits path into segments.
+   * </p>
+   * <p>
+   * On systems, where separator is not {@code /}, separators are replaced with {@code /} first, same as
+   * {@link Minimatch#match(String)} does.
+   * </p>
+   * <p>
+   * Path is copied with {@link CharSequence#toString()}, so later changes of a mutable sequence, like
+   * {@link StringBuilder}, don't change the tokens. Strings are not copied.
+   * </p>
+   *
+   * @param path path to split.
+   * @return tokenized path.
+   */
+  public static PathTokens of(CharSequence path) {
+    Objects.requireNonNull(path);
+    // windows: need to use /, not \
+    String str = path.toString();
+    if (!SEP.equals("/")) {
+      str = StringUtils.replace(str, SEP, "/");
+    }
+    return tokenize(str);
+  }
+
+  // splits path as is, separators must be already normalized
+  static PathTokens tokenize(CharSequence path) {
+    int length = path.length();
+
+    int count = 1;
+    for (int i = 0; i < length; i++) {
+      if (path.charAt(i) == '/') {
+        count++;
+        while (i + 1 < length && path.charAt(i + 1) == '/') {
+          i++;
+        }
+      }
+    }
+
+    int[] bounds = new int[count * 2];
+    int start = 0;
+    int b = 0;
+    for (int i = 0; i < length; i++) {
+      if (path.charAt(i) == '/') {
+        bounds[b++] = start;
+        bounds[b++] = i;
+        while (i + 1 < length && path.charAt(i + 1) == '/') {
+          i++;
+        }
+        start = i + 1;
+      }
+    }
+    bounds[b++] = start;
+    bounds[b] = length;
+
+    return new PathTokens(path, bounds);
+  }
+
+  /**
+   * Returns tokens with a single segment: the last non-empty segment of this path, or an empty one if there is no such
+   * segment. This is the part of the path used by {@link Minimatch#MATCH_BASE} patterns.
+   */
+  public PathTokens basename() {
+    PathTokens result = basename;
+    if (result == null) {
+      if (size() == 1) {
+        result = this;
+      } else {
+        int i = size() - 1;
+        while (i > 0 && isEmpty(i)) {
+          i--;
+        }
+        result = new PathTokens(path, new int[] {start(i), end(i)});
+      }
+      basename = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns {@code true} if any segment of the path starts with a dot, including {@code .} and {@code ..} segments.
+   */
+  public boolean hasDotSegment() {
+    byte result = dotSegment;
+    if (result == UNKNOWN) {
+      result = NO;
+      for (int i = 0; i < size(); i++) {
+        if (isDot(i)) {
+          result = YES;
+          break;
+        }
+      }
+      dotSegment = result;
+    }
+    return result == YES;
+  }
+
+  /**
+   * Returns the tokenized path.
+   */
+  public CharSequence path() {
+    return path;
+  }
+
+  /**
+   * Returns number of segments, which is always at least one.
+   */
+  public int size() {
+    return bounds.length / 2;
+  }
+
+  int start(int i) {
+    return bounds[i * 2];
+  }
+
+  int end(int i) {
+    return bounds[i * 2 + 1];
+  }
+
+  boolean isEmpty(int i) {
+    return start(i) == end(i);
+  }
+
+  /**
+   * Segment starts with a dot.
+   */
+  boolean isDot(int i) {
+    return !isEmpty(i) && path.charAt(start(i)) == '.';
+  }
+
+  /**
+   * Segment is {@code .} or {@code ..}.
+   */
+  boolean isDotOrDoubleDot(int i) {
+    int length = end(i) - start(i);
+    return isDot(i) && (length == 1 || (length == 2 && path.charAt(start(i) + 1) == '.'));
+  }
+
+  /**
+   * Compares segment with a string, same as {@link String#equals(Object)} or {@link String#equalsIgnoreCase(String)}.
+   */
+  boolean equals(int i, String s, boolean ignoreCase) {
+    int start = start(i);
+    int length = end(i) - start;
+    if (length != s.length()) {
+      return false;
+    }
+    if (path instanceof String) {
+      return ((String) path).regionMatches(ignoreCase, start, s, 0, length);
+    }
+    for (int k = 0; k < length; k++) {
+      char a = path.charAt(start + k);
+      char b = s.charAt(k);
+      if (a != b && !(ignoreCase && equalsIgnoreCase(a, b))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // same comparison as String.regionMatches does
+  private static boolean equalsIgnoreCase(char a, char b) {
+    char ua = Character.toUpperCase(a);
+    char ub = Character.toUpperCase(b);
+    return ua == ub || Character.toLowerCase(ua) == Character.toLowerCase(ub);
+  }
+
+  /**
+   * Returns segment at the given index.
+   *
+   * @param i index of the segment.
+   * @return segment without slashes, can be empty.
+   */
+  public String segment(int i) {
+    return path.subSequence(start(i), end(i)).toString();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("[");
+    for (int i = 0; i < size(); i++) {
+      if (i > 0) {
+        result.append(", ");
+      }
+      result.append(path, start(i), end(i));
+    }
+    return result.append("]").toString();
+  }
+
+}
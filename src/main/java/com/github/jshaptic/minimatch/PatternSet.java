@@ -0,0 +1,251 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Set of patterns, which matches a path against all of them at once and returns ids of the matching patterns.
+ * </p>
+ * <p>
+ * Patterns are not tested one by one. Every expanded pattern is indexed by its leading literal segments in a trie and
+ * by the fixed extension of its last segment (like {@code .js} in {@code src/**}{@code /*.js}), so only the patterns,
+ * which can possibly match the path, are actually run. Patterns, which can't be indexed this way (negated,
+ * {@link Minimatch#NO_CASE} and empty ones), are run for every path.
+ * </p>
+ * <p>
+ * Result for every pattern is exactly the same as {@link Minimatch#match(String)} returns.
+ * </p>
+ * <p>
+ * Adding patterns is not thread-safe, but once all patterns are added, the set can be used from many threads.
+ * </p>
+ */
+public final class PatternSet {
+
+  private final List<Minimatch> patterns = new ArrayList<>();
+  private final Node root = new Node();
+  // rows matched against the basename, by extension of the basename
+  private final Map<String, IdList> baseByExtension = new HashMap<>();
+  private final IdList base = new IdList();
+  // patterns, which are run for every path
+  private final IdList always = new IdList();
+
+  /**
+   * Adds pattern to the set.
+   *
+   * @param pattern pattern to use for matching.
+   * @param options various flags that can affect matching.
+   * @return id of the pattern, ids are assigned sequentially starting from {@code 0}.
+   */
+  public int add(String pattern, int options) {
+    return add(new Minimatch(pattern, options));
+  }
+
+  /**
+   * Adds pattern to the set.
+   *
+   * @param pattern pattern to use for matching.
+   * @return id of the pattern, ids are assigned sequentially starting from {@code 0}.
+   */
+  public int add(String pattern) {
+    return add(pattern, Minimatch.NO_OPTIONS);
+  }
+
+  /**
+   * Adds compiled pattern to the set.
+   *
+   * @param mm compiled pattern.
+   * @return id of the pattern, ids are assigned sequentially starting from {@code 0}.
+   */
+  public int add(Minimatch mm) {
+    Objects.requireNonNull(mm);
+    int id = patterns.size();
+    patterns.add(mm);
+
+    if (mm.isComment()) {
+      // comments never match anything
+      return id;
+    }
+    if (!mm.isIndexable()) {
+      always.add(id);
+      return id;
+    }
+
+    for (int row = 0; row < mm.getRowCount(); row++) {
+      String extension = mm.getExtension(row);
+      if (mm.isBaseRow(row)) {
+        if (extension == null) {
+          base.add(id);
+        } else {
+          baseByExtension.computeIfAbsent(extension, k -> new IdList()).add(id);
+        }
+        continue;
+      }
+
+      Node node = root;
+      for (String literal : mm.getLiteralPrefix(row)) {
+        node = node.child(literal);
+      }
+      node.add(extension, id);
+    }
+
+    return id;
+  }
+
+  /**
+   * Returns number of patterns in the set.
+   */
+  public int size() {
+    return patterns.size();
+  }
+
+  /**
+   * Returns compiled pattern with the given id.
+   *
+   * @param id id of the pattern returned by {@code add} method.
+   * @return compiled pattern.
+   */
+  public Minimatch get(int id) {
+    return patterns.get(id);
+  }
+
+  /**
+   * Matches path against all patterns in the set.
+   *
+   * @param path path to match.
+   * @return ids of the matching patterns.
+   */
+  public BitSet match(String path) {
+    return match(PathTokens.of(path));
+  }
+
+  /**
+   * Matches tokenized path against all patterns in the set.
+   *
+   * @param path path tokenized with {@link PathTokens#of(CharSequence)}.
+   * @return ids of the matching patterns.
+   */
+  public BitSet match(PathTokens path) {
+    BitSet result = candidates(path);
+    for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+      if (!patterns.get(id).match(path)) {
+        result.clear(id);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the highest id of a pattern, which matches the path.
+   *
+   * @param path path to match.
+   * @return id of the last added matching pattern, or {@code -1} if nothing matches.
+   */
+  public int findLast(String path) {
+    return findLast(PathTokens.of(path));
+  }
+
+  /**
+   * <p>
+   * Returns the highest id of a pattern, which matches the tokenized path.
+   * </p>
+   * <p>
+   * Candidate patterns are tested starting from the highest id, so the search stops on the first match. This is useful
+   * for ordered rules, where the last matching rule wins.
+   * </p>
+   *
+   * @param path path tokenized with {@link PathTokens#of(CharSequence)}.
+   * @return id of the last added matching pattern, or {@code -1} if nothing matches.
+   */
+  public int findLast(PathTokens path) {
+    BitSet candidates = candidates(path);
+    for (int id = candidates.previousSetBit(patterns.size()); id >= 0; id = candidates.previousSetBit(id - 1)) {
+      if (patterns.get(id).match(path)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  // ids of patterns, which can possibly match the path
+  private BitSet candidates(PathTokens path) {
+    Objects.requireNonNull(path);
+    BitSet result = new BitSet(patterns.size());
+
+    // rows ending with a non-empty segment are matched by the last non-empty segment of the path
+    int size = path.size();
+    int last = size > 1 && path.isEmpty(size - 1) ? size - 2 : size - 1;
+    String extension = Minimatch.extension(path.path(), path.start(last), path.end(last));
+
+    Node node = root;
+    for (int i = 0; node != null; i++) {
+      add(node.any, result);
+      add(node.byExtension.get(extension), result);
+      node = i < size ? node.children.get(path.segment(i)) : null;
+    }
+
+    PathTokens basename = path.basename();
+    add(base, result);
+    add(baseByExtension.get(Minimatch.extension(basename.path(), basename.start(0), basename.end(0))), result);
+
+    add(always, result);
+    return result;
+  }
+
+  private static void add(IdList ids, BitSet result) {
+    if (ids != null) {
+      for (int i = 0; i < ids.size; i++) {
+        result.set(ids.ids[i]);
+      }
+    }
+  }
+
+  private static final class Node {
+
+    private static final Map<String, Node> NO_CHILDREN = new HashMap<>(0);
+
+    private Map<String, Node> children = NO_CHILDREN;
+    private final Map<String, IdList> byExtension = new HashMap<>(0);
+    private final IdList any = new IdList();
+
+    private Node child(String literal) {
+      if (children == NO_CHILDREN) {
+        children = new HashMap<>();
+      }
+      return children.computeIfAbsent(literal, k -> new Node());
+    }
+
+    private void add(String extension, int id) {
+      if (extension == null) {
+        any.add(id);
+      } else {
+        byExtension.computeIfAbsent(extension, k -> new IdList()).add(id);
+      }
+    }
+
+  }
+
+  private static final class IdList {
+
+    private int[] ids = new int[0];
+    private int size;
+
+    private void add(int id) {
+      // rows of the same pattern are added one after another
+      if (size > 0 && ids[size - 1] == id) {
+        return;
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+      }
+      ids[size++] = id;
+    }
+
+  }
+
+}
@@ -0,0 +1,497 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Matcher of a single path segment, which doesn't use regular expressions.
+ * </p>
+ * <p>
+ * It supports only the most common glob shapes: literals, {@code *}, {@code ?} and simple character classes like
+ * {@code [a-z]} or {@code [!abc]}. Everything else (extglob, escapes of extglob chars, complex classes) has to be
+ * handled by the regular expression generated by {@link Minimatch}, so {@link #compile(String, int)} returns
+ * {@code null} for such globs.
+ * </p>
+ * <p>
+ * Matching semantics are exactly the same as for the generated regular expression, including {@link Minimatch#DOT},
+ * {@link Minimatch#NO_CASE} and leading dot rules.
+ * </p>
+ */
+final class SegmentMatcher {
+
+  private static final int STAR = -1;
+  private static final int QMARK = -2;
+  // classes are encoded as CLASS - index
+  private static final int CLASS = -3;
+
+  private enum Kind {
+    ANY, EXACT, PREFIX, SUFFIX, CONTAINS, PREFIX_SUFFIX, WILDCARD
+  }
+
+  private final Kind kind;
+  private final boolean noCase;
+  // leading dot rules, which are applied only if glob starts with something that could match a dot
+  private final boolean checkDot;
+  private final boolean dot;
+  private final String prefix;
+  private final String suffix;
+  private final int[] program;
+  private final CharClass[] classes;
+
+  private SegmentMatcher(Kind kind, int options, boolean checkDot, String prefix, String suffix, int[] program,
+      CharClass[] classes) {
+    this.kind = kind;
+    this.noCase = (options & Minimatch.NO_CASE) == Minimatch.NO_CASE;
+    this.dot = (options & Minimatch.DOT) == Minimatch.DOT;
+    this.checkDot = checkDot;
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.program = program;
+    this.classes = classes;
+  }
+
+  /**
+   * Compiles glob segment into matcher.
+   *
+   * @param glob glob of a single path segment, without any slashes.
+   * @param options minimatch options.
+   * @return compiled matcher or {@code null} if the glob has to be matched with regular expression.
+   */
+  static SegmentMatcher compile(String glob, int options) {
+    if (glob.isEmpty()) {
+      return null;
+    }
+
+    List<Integer> program = new ArrayList<>();
+    List<CharClass> classes = new ArrayList<>();
+    boolean ext = (options & Minimatch.NO_EXT) != Minimatch.NO_EXT;
+
+    for (int i = 0; i < glob.length();) {
+      char c = glob.charAt(i);
+      switch (c) {
+        case '\\':
+          if (i + 1 == glob.length()) {
+            // trailing backslash is a literal one
+            program.add((int) '\\');
+            i++;
+            continue;
+          }
+          int e = glob.codePointAt(i + 1);
+          if (e == '@' || e == '/') {
+            // escaped @ is still an extglob state char
+            return null;
+          }
+          program.add(e);
+          i += 1 + Character.charCount(e);
+          continue;
+
+        case '*':
+        case '?':
+          if (ext && i + 1 < glob.length() && glob.charAt(i + 1) == '(') {
+            return null;
+          }
+          if (c == '?') {
+            program.add(QMARK);
+          } else if (program.isEmpty() || program.get(program.size() - 1) != STAR) {
+            program.add(STAR);
+          }
+          i++;
+          continue;
+
+        case '[':
+          int end = glob.indexOf(']', i + 1);
+          CharClass cc = end < 0 ? null : CharClass.parse(glob, i + 1, end);
+          if (cc == null) {
+            return null;
+          }
+          program.add(CLASS - classes.size());
+          classes.add(cc);
+          i = end + 1;
+          continue;
+
+        case '(':
+        case ')':
+        case '|':
+        case ']':
+        case '/':
+          return null;
+
+        default:
+          int cp = glob.codePointAt(i);
+          program.add(cp);
+          i += Character.charCount(cp);
+      }
+    }
+
+    int[] prog = program.stream().mapToInt(Integer::intValue).toArray();
+    boolean hasMagic = (options & Minimatch.NO_CASE) == Minimatch.NO_CASE;
+    for (int op : prog) {
+      hasMagic |= op < 0;
+    }
+    if (!hasMagic) {
+      // plain literals are compared as strings by Minimatch
+      return null;
+    }
+
+    // same as patternStart in Minimatch, it's applied only when the regexp starts with a class
+    boolean checkDot = prog[0] < 0 && glob.charAt(0) != '.';
+    CharClass[] cls = classes.toArray(new CharClass[0]);
+
+    // find out the shape of the glob to use faster specializations
+    int stars = 0;
+    boolean wildcards = cls.length > 0;
+    for (int op : prog) {
+      if (op == STAR) {
+        stars++;
+      } else if (op < 0) {
+        wildcards = true;
+      }
+    }
+    if (!wildcards) {
+      int first = prog[0] == STAR ? 1 : 0;
+      int last = prog[prog.length - 1] == STAR ? prog.length - 1 : prog.length;
+      if (prog.length == 1 && stars == 1) {
+        return new SegmentMatcher(Kind.ANY, options, checkDot, null, null, prog, cls);
+      }
+      if (stars == 0) {
+        return new SegmentMatcher(Kind.EXACT, options, checkDot, literal(prog, 0, prog.length), null, prog, cls);
+      }
+      if (stars == 1 && last == prog.length - 1) {
+        return new SegmentMatcher(Kind.PREFIX, options, checkDot, literal(prog, 0, last), null, prog, cls);
+      }
+      if (stars == 1 && first == 1) {
+        return new SegmentMatcher(Kind.SUFFIX, options, checkDot, null, literal(prog, 1, prog.length), prog, cls);
+      }
+      if (stars == 2 && first == 1 && last == prog.length - 1) {
+        return new SegmentMatcher(Kind.CONTAINS, options, checkDot, literal(prog, 1, last), null, prog, cls);
+      }
+      if (stars == 1) {
+        int star = 0;
+        while (prog[star] != STAR) {
+          star++;
+        }
+        return new SegmentMatcher(Kind.PREFIX_SUFFIX, options, checkDot, literal(prog, 0, star),
+            literal(prog, star + 1, prog.length), prog, cls);
+      }
+    }
+
+    return new SegmentMatcher(Kind.WILDCARD, options, checkDot, null, null, prog, cls);
+  }
+
+  private static String literal(int[] program, int from, int to) {
+    StringBuilder result = new StringBuilder();
+    for (int i = from; i < to; i++) {
+      result.appendCodePoint(program[i]);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns literal, which every matching string starts with, or {@code null} if there is no such literal or matching
+   * is case insensitive.
+   */
+  String getLiteralPrefix() {
+    if (noCase) {
+      return null;
+    }
+    switch (kind) {
+      case EXACT:
+      case PREFIX:
+      case PREFIX_SUFFIX:
+        return prefix.isEmpty() ? null : prefix;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns literal, which every matching string ends with, or {@code null} if there is no such literal or matching is
+   * case insensitive.
+   */
+  String getLiteralSuffix() {
+    if (noCase) {
+      return null;
+    }
+    switch (kind) {
+      case EXACT:
+        return prefix;
+      case SUFFIX:
+      case PREFIX_SUFFIX:
+        return suffix;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns literals, which every matching string contains, or an empty list if there are no such literals or matching
+   * is case insensitive.
+   */
+  List<String> getLiterals() {
+    List<String> result = new ArrayList<>();
+    if (noCase) {
+      return result;
+    }
+    switch (kind) {
+      case EXACT:
+      case PREFIX:
+      case CONTAINS:
+        result.add(prefix);
+        break;
+      case SUFFIX:
+        result.add(suffix);
+        break;
+      case PREFIX_SUFFIX:
+        result.add(prefix);
+        result.add(suffix);
+        break;
+      default:
+        break;
+    }
+    return result;
+  }
+
+  /**
+   * Tests whole string against the glob.
+   *
+   * @param s string to test.
+   * @return {@code true} if the string matches the glob.
+   */
+  boolean matches(CharSequence s) {
+    return matches(s, 0, s.length());
+  }
+
+  /**
+   * Tests region of a string against the glob.
+   *
+   * @param s string to test.
+   * @param from start of the region, inclusive.
+   * @param to end of the region, exclusive.
+   * @return {@code true} if the region matches the glob.
+   */
+  boolean matches(CharSequence s, int from, int to) {
+    // magic patterns never match an empty path part, regexps ensure it with (?=.)
+    if (from >= to || isLineTerminator(s.charAt(from))) {
+      return false;
+    }
+
+    if (checkDot) {
+      if (dot) {
+        // . and .. never match anything that doesn't start with .
+        if (isDotOrDoubleDot(s, from, to)) {
+          return false;
+        }
+      } else if (s.charAt(from) == '.') {
+        return false;
+      }
+    }
+
+    int length = to - from;
+    switch (kind) {
+      case ANY:
+        return true;
+      case EXACT:
+        return length == prefix.length() && regionMatches(s, from, prefix);
+      case PREFIX:
+        return length >= prefix.length() && regionMatches(s, from, prefix);
+      case SUFFIX:
+        return length >= suffix.length() && regionMatches(s, to - suffix.length(), suffix);
+      case PREFIX_SUFFIX:
+        return length >= prefix.length() + suffix.length() && regionMatches(s, from, prefix)
+            && regionMatches(s, to - suffix.length(), suffix);
+      case CONTAINS:
+        for (int i = from, l = to - prefix.length(); i <= l; i++) {
+          if (regionMatches(s, i, prefix)) {
+            return true;
+          }
+        }
+        return false;
+      default:
+        return wildcard(s, from, to);
+    }
+  }
+
+  // two pointers algorithm: remember the last star and on a mismatch let it swallow one more code point, so there is
+  // no exponential backtracking.
+  private boolean wildcard(CharSequence s, int from, int to) {
+    int[] prog = this.program;
+    int m = prog.length;
+    int p = 0;
+    int i = from;
+    int starP = -1;
+    int starI = -1;
+
+    while (i < to) {
+      if (p < m && prog[p] == STAR) {
+        starP = ++p;
+        starI = i;
+        continue;
+      }
+      if (p < m) {
+        int c = codePointAt(s, i, to);
+        if (matchesCodePoint(prog[p], c)) {
+          p++;
+          i += Character.charCount(c);
+          continue;
+        }
+      }
+      if (starP < 0) {
+        return false;
+      }
+      starI += Character.charCount(codePointAt(s, starI, to));
+      i = starI;
+      p = starP;
+    }
+
+    while (p < m && prog[p] == STAR) {
+      p++;
+    }
+    return p == m;
+  }
+
+  private boolean matchesCodePoint(int op, int c) {
+    if (op == QMARK) {
+      return true;
+    }
+    if (op <= CLASS) {
+      return classes[CLASS - op].matches(c, noCase);
+    }
+    return op == c || noCase && foldAscii(op) == foldAscii(c);
+  }
+
+  private boolean regionMatches(CharSequence s, int offset, String literal) {
+    for (int i = 0, l = literal.length(); i < l; i++) {
+      char a = s.charAt(offset + i);
+      char b = literal.charAt(i);
+      if (a != b && !(noCase && foldAscii(a) == foldAscii(b))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int codePointAt(CharSequence s, int index, int limit) {
+    char high = s.charAt(index);
+    if (Character.isHighSurrogate(high) && index + 1 < limit) {
+      char low = s.charAt(index + 1);
+      if (Character.isLowSurrogate(low)) {
+        return Character.toCodePoint(high, low);
+      }
+    }
+    return high;
+  }
+
+  // java.util.regex performs case insensitive matching only for US-ASCII, unless UNICODE_CASE flag is set
+  private static int foldAscii(int c) {
+    return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+  }
+
+  private static boolean isAsciiUpper(int c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  private static boolean isAsciiLower(int c) {
+    return c >= 'a' && c <= 'z';
+  }
+
+  // line terminators as they are understood by the dot and dollar in java.util.regex
+  private static boolean isLineTerminator(int c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  // same as (?!(?:^|\/)\.{1,2}(?:$|\/)) at the start of the segment
+  private static boolean isDotOrDoubleDot(CharSequence s, int from, int to) {
+    int i = from;
+    while (i < to && i - from < 2 && s.charAt(i) == '.') {
+      i++;
+    }
+    if (i == from) {
+      return false;
+    }
+    int rest = to - i;
+    if (rest == 0) {
+      return true;
+    }
+    // $ matches before the final line terminator as well
+    if (rest == 1 && isLineTerminator(s.charAt(i))) {
+      return true;
+    }
+    if (rest == 2 && s.charAt(i) == '\r' && s.charAt(i + 1) == '\n') {
+      return true;
+    }
+    // with a single dot followed by another dot, the lookahead has been tried with both lengths already
+    return false;
+  }
+
+  /**
+   * Simple character class, like {@code [a-z_]} or {@code [!.]}.
+   */
+  private static final class CharClass {
+
+    private final boolean negate;
+    private final int[] ranges;
+
+    private CharClass(boolean negate, int[] ranges) {
+      this.negate = negate;
+      this.ranges = ranges;
+    }
+
+    // parses the class body between [ and ], returns null for anything, which is not trivially a java regexp class
+    private static CharClass parse(String glob, int from, int to) {
+      boolean negate = false;
+      if (from < to && (glob.charAt(from) == '!' || glob.charAt(from) == '^')) {
+        negate = true;
+        from++;
+      }
+      if (from >= to) {
+        return null;
+      }
+
+      List<Integer> ranges = new ArrayList<>();
+      for (int i = from; i < to;) {
+        int lo = glob.codePointAt(i);
+        if (!isClassChar(lo) && !(lo == '-' && (i == from || i + 1 == to))) {
+          return null;
+        }
+        i += Character.charCount(lo);
+        int hi = lo;
+        if (lo != '-' && i + 1 < to && glob.charAt(i) == '-') {
+          hi = glob.codePointAt(i + 1);
+          if (!isClassChar(hi) || hi < lo) {
+            return null;
+          }
+          i += 1 + Character.charCount(hi);
+        }
+        ranges.add(lo);
+        ranges.add(hi);
+      }
+
+      return new CharClass(negate, ranges.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static boolean isClassChar(int c) {
+      return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == ',' || c == ':' || c == ';' || c == '='
+          || c == '+' || c == '@' || c == '#' || c == '%' || c == '~' || c == ' ' || c == '*' || c == '?';
+    }
+
+    private boolean matches(int c, boolean noCase) {
+      boolean result = contains(c);
+      if (!result && noCase && (isAsciiUpper(c) || isAsciiLower(c))) {
+        result = contains(isAsciiUpper(c) ? c + ('a' - 'A') : c - ('a' - 'A'));
+      }
+      return result != negate;
+    }
+
+    private boolean contains(int c) {
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (c >= ranges[i] && c <= ranges[i + 1]) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+}
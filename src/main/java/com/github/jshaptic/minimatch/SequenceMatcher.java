@@ -0,0 +1,333 @@
+package com.github.jshaptic.minimatch;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Matcher of a single path segment, which contains brace sequence like {@code app-{1..100000}.log}.
+ * </p>
+ * <p>
+ * Large sequences are not expanded. Before brace expansion every such sequence is replaced with a placeholder, so the
+ * expanded pattern contains a single placeholder instead of all values of the sequence. Segment with a placeholder is
+ * compiled into this matcher, which checks literal prefix and suffix and then tests the rest of the segment against
+ * the range, step and zero padding of the sequence. Memory and compile time don't depend on the size of the range.
+ * </p>
+ * <p>
+ * Only the cases, where result is guaranteed to be the same as for the expanded pattern, are supported: pattern without
+ * escapes, every sequence is at the top level and segment with a placeholder is a plain literal otherwise. Everything
+ * else is expanded as usual.
+ * </p>
+ */
+final class SequenceMatcher {
+
+  // sequences with fewer values are expanded, it's cheap and keeps literal segments for other optimizations
+  static final int THRESHOLD = 32;
+
+  // every replaced sequence gets its own character from the private use area
+  private static final char PLACEHOLDER = '\uE000';
+  private static final char LAST_PLACEHOLDER = '\uF8FF';
+  private static final long MAX_VALUE = 1_000_000_000_000_000L;
+  private static final String MAGIC = "*?[]()|!+@\\";
+
+  private final String prefix;
+  private final String suffix;
+  private final Sequence sequence;
+
+  private SequenceMatcher(String prefix, String suffix, Sequence sequence) {
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Replaces large top-level sequences of the pattern with placeholders.
+   *
+   * @param pattern pattern to process, without negation.
+   * @param sequences list, where replaced sequences are added, index of the sequence is the index of its placeholder.
+   * @return pattern with placeholders or {@code null} if nothing was replaced.
+   */
+  static String replaceSequences(String pattern, List<Sequence> sequences) {
+    if (pattern.startsWith("{}") || pattern.indexOf('\\') >= 0 || pattern.indexOf('$') >= 0) {
+      return null;
+    }
+
+    // braces must be balanced and every set must be either a sequence or contain a comma, so brace expansion handles
+    // every set on its own
+    int length = pattern.length();
+    int[] closing = new int[length];
+    int[] stack = new int[length];
+    int depth = 0;
+    for (int i = 0; i < length; i++) {
+      char c = pattern.charAt(i);
+      if (c >= PLACEHOLDER && c <= LAST_PLACEHOLDER) {
+        return null;
+      } else if (c == '{') {
+        stack[depth++] = i;
+      } else if (c == '}') {
+        if (depth == 0) {
+          return null;
+        }
+        int open = stack[--depth];
+        closing[open] = i;
+        String body = pattern.substring(open + 1, i);
+        if (body.indexOf(',') < 0 && Sequence.parse(body) == null) {
+          return null;
+        }
+      }
+    }
+    if (depth != 0) {
+      return null;
+    }
+
+    StringBuilder result = new StringBuilder(length);
+    int start = sequences.size();
+    for (int i = 0; i < length; i++) {
+      char c = pattern.charAt(i);
+      if (c != '{') {
+        result.append(c);
+        continue;
+      }
+      // top-level set, nested ones are copied as is
+      Sequence sequence = Sequence.parse(pattern.substring(i + 1, closing[i]));
+      if (sequence != null && sequence.count() >= THRESHOLD && PLACEHOLDER + sequences.size() <= LAST_PLACEHOLDER) {
+        result.append((char) (PLACEHOLDER + sequences.size()));
+        sequences.add(sequence);
+      } else {
+        result.append(pattern, i, closing[i] + 1);
+      }
+      i = closing[i];
+    }
+
+    return sequences.size() > start ? result.toString() : null;
+  }
+
+  /**
+   * Checks if the segment contains a placeholder.
+   */
+  static boolean hasPlaceholder(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      char c = segment.charAt(i);
+      if (c >= PLACEHOLDER && c <= LAST_PLACEHOLDER) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compiles segment with a placeholder into matcher.
+   *
+   * @param segment segment of the expanded pattern.
+   * @param sequences sequences replaced in the pattern.
+   * @return compiled matcher or {@code null} if the segment is not a literal with a single placeholder.
+   */
+  static SequenceMatcher compile(String segment, List<Sequence> sequences) {
+    int placeholder = -1;
+    for (int i = 0; i < segment.length(); i++) {
+      char c = segment.charAt(i);
+      if (c >= PLACEHOLDER && c <= LAST_PLACEHOLDER) {
+        if (placeholder >= 0) {
+          return null;
+        }
+        placeholder = i;
+      } else if (MAGIC.indexOf(c) >= 0) {
+        return null;
+      }
+    }
+    if (placeholder < 0) {
+      return null;
+    }
+    return new SequenceMatcher(segment.substring(0, placeholder), segment.substring(placeholder + 1),
+        sequences.get(segment.charAt(placeholder) - PLACEHOLDER));
+  }
+
+  /**
+   * Returns literal, which every matching string ends with.
+   */
+  String getLiteralSuffix() {
+    return suffix;
+  }
+
+  /**
+   * Tests region of a string against the segment.
+   *
+   * @param s string to test.
+   * @param from start of the region, inclusive.
+   * @param to end of the region, exclusive.
+   * @return {@code true} if the region is equal to the segment with one of the sequence values.
+   */
+  boolean matches(CharSequence s, int from, int to) {
+    int valueFrom = from + prefix.length();
+    int valueTo = to - suffix.length();
+    return valueFrom <= valueTo && regionMatches(s, from, prefix) && regionMatches(s, valueTo, suffix)
+        && sequence.contains(s, valueFrom, valueTo);
+  }
+
+  private static boolean regionMatches(CharSequence s, int from, String literal) {
+    for (int i = 0; i < literal.length(); i++) {
+      if (s.charAt(from + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SequenceMatcher)) {
+      return false;
+    }
+    SequenceMatcher other = (SequenceMatcher) obj;
+    return sequence == other.sequence && prefix.equals(other.prefix) && suffix.equals(other.suffix);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * prefix.hashCode() + suffix.hashCode()) + System.identityHashCode(sequence);
+  }
+
+  @Override
+  public String toString() {
+    return prefix + sequence + suffix;
+  }
+
+  /**
+   * Numeric or alpha sequence with the same semantics as in {@link BraceExpansion}.
+   */
+  static final class Sequence {
+
+    private final boolean alpha;
+    private final long x;
+    private final long y;
+    private final long incr;
+    private final boolean pad;
+    private final int width;
+
+    private Sequence(boolean alpha, long x, long y, long incr, boolean pad, int width) {
+      this.alpha = alpha;
+      this.x = x;
+      this.y = y;
+      this.incr = incr;
+      this.pad = pad;
+      this.width = width;
+    }
+
+    // returns null if the body is not a sequence or it's not supported
+    private static Sequence parse(String body) {
+      boolean numeric = BraceExpansion.numericSequence.matcher(body).find();
+      boolean alpha = BraceExpansion.alphaSequence.matcher(body).find();
+      if (!numeric && !alpha) {
+        return null;
+      }
+
+      String[] n = body.split("\\.\\.", -1);
+      long incr = 1;
+      try {
+        if (n.length == 3) {
+          incr = Math.abs(Long.parseLong(n[2]));
+        }
+        if (incr == 0 || incr > MAX_VALUE) {
+          return null;
+        }
+        if (alpha) {
+          char x = n[0].charAt(0);
+          char y = n[1].charAt(0);
+          // values between letters of different case are not letters
+          if (Character.isUpperCase(x) != Character.isUpperCase(y)) {
+            return null;
+          }
+          return new Sequence(true, x, y, incr, false, 1);
+        }
+        long x = Long.parseLong(n[0]);
+        long y = Long.parseLong(n[1]);
+        if (Math.abs(x) > MAX_VALUE || Math.abs(y) > MAX_VALUE) {
+          return null;
+        }
+        boolean pad = false;
+        for (String el : n) {
+          pad |= isPadded(el);
+        }
+        return new Sequence(false, x, y, incr, pad, Math.max(n[0].length(), n[1].length()));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    private static boolean isPadded(String el) {
+      return (el.length() >= 3 && el.startsWith("-0") && Character.isDigit(el.charAt(2)))
+          || (el.length() >= 2 && el.startsWith("0") && Character.isDigit(el.charAt(1)));
+    }
+
+    private long count() {
+      return Math.abs(y - x) / incr + 1;
+    }
+
+    private boolean contains(CharSequence s, int from, int to) {
+      int length = to - from;
+      long value;
+      if (alpha) {
+        if (length != 1) {
+          return false;
+        }
+        value = s.charAt(from);
+      } else {
+        // long enough for any padded value up to MAX_VALUE
+        if (length == 0 || length > 40) {
+          return false;
+        }
+        boolean negative = s.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to) {
+          return false;
+        }
+        value = 0;
+        for (; i < to; i++) {
+          char c = s.charAt(i);
+          if (c < '0' || c > '9' || value > MAX_VALUE / 10) {
+            return false;
+          }
+          value = value * 10 + (c - '0');
+        }
+        if (negative) {
+          value = -value;
+        }
+      }
+
+      if (value < Math.min(x, y) || value > Math.max(x, y) || (value - x) % incr != 0) {
+        return false;
+      }
+      // same value can be written differently, e.g. with leading zeros
+      return alpha || format(value).contentEquals(s.subSequence(from, to));
+    }
+
+    // same formatting as in BraceExpansion
+    private String format(long i) {
+      String c = Long.toString(i);
+      if (pad) {
+        int need = width - c.length();
+        if (need > 0) {
+          StringBuilder z = new StringBuilder();
+          for (int k = 0; k < need; k++) {
+            z.append('0');
+          }
+          if (i < 0) {
+            c = "-" + z + c.substring(1);
+          } else {
+            c = z + c;
+          }
+        }
+      }
+      return c;
+    }
+
+    @Override
+    public String toString() {
+      return alpha ? "{" + (char) x + ".." + (char) y + ".." + incr + "}" : "{" + x + ".." + y + ".." + incr + "}";
+    }
+
+  }
+
+}
@@ -0,0 +1,82 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.testng.annotations.Test;
+
+public class MinimatchAnalysis {
+
+  @Test
+  public void literalBase() {
+    assertEquals(new Minimatch("src/main/**/*.js").getLiteralBase(), Arrays.asList("src", "main"));
+    assertEquals(new Minimatch("src/{main,test}/*.js").getLiteralBase(), Arrays.asList("src"));
+    assertEquals(new Minimatch("src/main").getLiteralBase(), Arrays.asList("src", "main"));
+    assertEquals(new Minimatch("/usr/lib/*").getLiteralBase(), Collections.emptyList());
+    assertEquals(new Minimatch("a/../b/*").getLiteralBase(), Arrays.asList("a"));
+    assertEquals(new Minimatch("*.js", Minimatch.MATCH_BASE).getLiteralBase(), Collections.emptyList());
+    assertEquals(new Minimatch("!src/*").getLiteralBase(), Collections.emptyList());
+  }
+
+  @Test
+  public void depth() {
+    Minimatch mm = new Minimatch("src/*/*.js");
+    assertEquals(mm.getMinDepth(), 3);
+    // src/a/b.js/ has one more empty segment
+    assertEquals(mm.getMaxDepth(), 4);
+
+    mm = new Minimatch("src/**/{a,b/c}.js");
+    assertEquals(mm.getMinDepth(), 2);
+    assertEquals(mm.getMaxDepth(), Integer.MAX_VALUE);
+
+    mm = new Minimatch("*.js", Minimatch.MATCH_BASE);
+    assertEquals(mm.getMinDepth(), 1);
+    assertEquals(mm.getMaxDepth(), Integer.MAX_VALUE);
+
+    mm = new Minimatch("!a/b");
+    assertEquals(mm.getMinDepth(), 0);
+    assertEquals(mm.getMaxDepth(), Integer.MAX_VALUE);
+    mm = new Minimatch("!a/b", Minimatch.FLIP_NEGATE);
+    assertEquals(mm.getMinDepth(), 2);
+    assertEquals(mm.getMaxDepth(), 3);
+  }
+
+  @Test
+  public void extension() {
+    assertEquals(new Minimatch("src/**/*.{min,map}.js").getExtension(), ".js");
+    assertEquals(new Minimatch("{a.tar.gz,*.gz}").getExtension(), ".gz");
+    assertNull(new Minimatch("*.{js,ts}").getExtension());
+    assertNull(new Minimatch("src/**").getExtension());
+    assertNull(new Minimatch("Makefile").getExtension());
+    assertNull(new Minimatch("*.js", Minimatch.NO_CASE).getExtension());
+  }
+
+  @Test
+  public void requiredLiterals() {
+    assertEquals(new Minimatch("src/{a,b}/**/*.test.js").getRequiredLiterals(), Arrays.asList("src", ".test.js"));
+    assertEquals(new Minimatch("{lib,src}/index*").getRequiredLiterals(), Arrays.asList("index"));
+    assertEquals(new Minimatch("*/*").getRequiredLiterals(), Collections.emptyList());
+    assertEquals(new Minimatch("a/*", Minimatch.NO_CASE).getRequiredLiterals(), Collections.emptyList());
+  }
+
+  @Test
+  public void rejectsWithoutSplitting() {
+    Minimatch mm = new Minimatch("src/*/*.js");
+    assertTrue(mm.match("src/a/b.js"));
+    assertTrue(mm.match("src/a/b.js/"));
+    assertTrue(mm.match("src//a/b.js"));
+    assertFalse(mm.match("src/a/b.ts"));
+    assertFalse(mm.match("src/a.js"));
+    assertFalse(mm.match("src/a/b/c.js"));
+
+    // rejected paths have no hits
+    assertTrue(new Minimatch("!src/*/*.js").match("src/a.js"));
+    assertFalse(new Minimatch("!src/*/*.js", Minimatch.FLIP_NEGATE).match("src/a.js"));
+    assertTrue(new Minimatch("*.js", Minimatch.MATCH_BASE).match("a/b/c.js//"));
+  }
+
+}
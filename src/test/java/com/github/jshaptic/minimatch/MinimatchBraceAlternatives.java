@@ -0,0 +1,78 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class MinimatchBraceAlternatives {
+
+  private static final int ROW = Minimatch.NO_BRACE | Minimatch.NO_NEGATE | Minimatch.NO_COMMENT;
+
+  private final List<String> patterns = new ArrayList<>(Arrays.asList("src/{a,b,c,d}/**/*.{js,ts,jsx,tsx}",
+      "{a,b}/{c,d}/{e,f}", "{a/b,c}/d", "{a,*.js,b}/c", "{a,A}/{b,+(x|y)}", "{a,a,b}/{**,c}/d", "{.x,y}/{*,z}",
+      "x{1..20}/{a,b}{1,2}", "{,a}/b", "{a,b}/", "/{a,b}/{[a-c],d}", "src/{a,b/x,b/*,c}/{**/*.js,y}",
+      "{src,src/a,*}/{b,*.js}"));
+  private final List<String> paths = Arrays.asList("src/b/x/y.tsx", "src/a/y.js", "src/e/y.js", "a/d/f", "b/c/e",
+      "a/b/d", "c/d", "x.js/c", "A/x", "a/b", "a/y", "a/c/d", "b/x/y/d", ".x/z", "y/.z", "x7/b2", "x21/a1", "/b", "b",
+      "a/", "b/c/", "/a/b", "/b/d", "/a/.");
+
+  @BeforeClass
+  private void getCases() throws FileNotFoundException {
+    Scanner cases =
+        new Scanner(new File(getClass().getClassLoader().getResource("braceexpansion/bash-results.txt").getFile()))
+            .useDelimiter("><><><><");
+    while (cases.hasNext()) {
+      String pattern = cases.next().split("\n", -1)[0];
+      patterns.add(pattern);
+      patterns.add("{x,y}/" + pattern + "/*");
+    }
+  }
+
+  @Test
+  public void matchesSameAsExpandedRows() {
+    for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.DOT | Minimatch.NO_CASE, Minimatch.MATCH_BASE}) {
+      for (String pattern : patterns) {
+        if (pattern.startsWith("!") || pattern.startsWith("#")) {
+          continue;
+        }
+        Minimatch mm = new Minimatch(pattern, options);
+        List<Minimatch> rows = new ArrayList<>();
+        List<String> candidates = new ArrayList<>(paths);
+        for (String row : BraceExpansion.expand(pattern.trim())) {
+          rows.add(new Minimatch(row, options | ROW));
+          candidates.add(row);
+          candidates.add("x/" + row + "/z");
+        }
+
+        for (String path : candidates) {
+          boolean expected = false;
+          for (Minimatch row : rows) {
+            expected |= row.match(path);
+          }
+          assertEquals(mm.match(path), expected, pattern + " vs " + path + " with options " + options);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void negatesSharedPrefixes() {
+    Minimatch mm = new Minimatch("!src/{a,b,c}/**/*.js");
+    assertFalse(mm.match("src/b/x/y.js"));
+    assertTrue(mm.match("src/d/y.js"));
+
+    Minimatch flip = new Minimatch("!src/{a,b,c}/**/*.js", Minimatch.FLIP_NEGATE);
+    assertTrue(flip.match("src/b/x/y.js"));
+    assertFalse(flip.match("src/d/y.js"));
+  }
+
+}
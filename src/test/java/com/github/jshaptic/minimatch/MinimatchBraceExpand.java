@@ -1,6 +1,8 @@
 package com.github.jshaptic.minimatch;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import com.github.jshaptic.minimatch.Patterns.TestPattern;
 import java.util.ArrayList;
@@ -35,4 +37,21 @@ public class MinimatchBraceExpand {
     });
   }
 
+  @Test
+  public void dropsDuplicateExpansions() {
+    assertEquals(Arrays.asList(Minimatch.braceExpand("{b,a,{a,c},b}{1,1}", Minimatch.NO_DUPLICATES)),
+        Arrays.asList("b1", "a1", "c1"));
+    assertEquals(Arrays.asList(Minimatch.braceExpand("{b,a,{a,c},b}{1,1}")).size(), 10);
+  }
+
+  @Test
+  public void matchesWithoutDuplicateRows() {
+    Minimatch mm = new Minimatch("x/{b,a,{a,c},b}/{1,1}");
+    assertTrue(mm.match("x/a/1"));
+    assertTrue(mm.match("x/c/1"));
+    assertFalse(mm.match("x/d/1"));
+    // regexp is still built from all expansions
+    assertEquals(mm.makeRe().pattern().split("\\|").length, 10);
+  }
+
 }
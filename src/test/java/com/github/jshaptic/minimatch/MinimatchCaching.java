@@ -0,0 +1,111 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class MinimatchCaching {
+
+  @Test
+  public void sharesCompiledPatterns() {
+    MinimatchCache cache = new MinimatchCache(8);
+
+    Minimatch first = cache.get("*.js", Minimatch.NO_OPTIONS);
+    assertSame(cache.get("*.js", Minimatch.NO_OPTIONS), first);
+    assertNotSame(cache.get("*.js", Minimatch.DOT), first);
+
+    assertEquals(cache.getMissCount(), 2);
+    assertEquals(cache.getHitCount(), 1);
+    assertEquals(cache.size(), 2);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    MinimatchCache cache = new MinimatchCache(2);
+
+    Minimatch a = cache.get("a", Minimatch.NO_OPTIONS);
+    cache.get("b", Minimatch.NO_OPTIONS);
+    // touch "a", so "b" becomes the eldest one
+    assertSame(cache.get("a", Minimatch.NO_OPTIONS), a);
+    cache.get("c", Minimatch.NO_OPTIONS);
+
+    assertEquals(cache.size(), 2);
+    assertEquals(cache.getEvictionCount(), 1);
+    assertSame(cache.get("a", Minimatch.NO_OPTIONS), a);
+    assertEquals(cache.getMissCount(), 3);
+
+    cache.setMaximumSize(0);
+    assertEquals(cache.size(), 0);
+    assertEquals(cache.getEvictionCount(), 3);
+    assertTrue(cache.get("a", Minimatch.NO_OPTIONS).match("a"));
+    assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void doesNotKeepBrokenPatterns() {
+    MinimatchCache cache = new MinimatchCache(8);
+    StringBuilder tooLong = new StringBuilder();
+    for (int i = 0; i <= 1024 * 64; i++) {
+      tooLong.append('a');
+    }
+
+    assertThrows(() -> cache.get(tooLong.toString(), Minimatch.NO_OPTIONS));
+    assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void compilesOnceOnConcurrentMisses() throws Exception {
+    MinimatchCache cache = new MinimatchCache(8);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Minimatch>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return cache.get("src/{a,b,c}/**/*.js", Minimatch.NO_OPTIONS);
+        }));
+      }
+      start.countDown();
+
+      Minimatch first = results.get(0).get();
+      for (Future<Minimatch> result : results) {
+        assertSame(result.get(), first);
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    assertEquals(cache.getMissCount(), 1);
+    assertEquals(cache.getHitCount(), threads - 1);
+  }
+
+  @Test
+  public void staticHelpersUseSharedCache() {
+    MinimatchCache cache = Minimatch.getCache();
+    long misses = cache.getMissCount();
+    long hits = cache.getHitCount();
+
+    String pattern = "cache/" + System.nanoTime() + "/*.txt";
+    assertTrue(Minimatch.minimatch("cache/" + pattern.split("/")[1] + "/a.txt", pattern));
+    assertFalse(Minimatch.minimatch("a.txt", pattern));
+
+    assertEquals(cache.getMissCount() - misses, 1);
+    assertTrue(cache.getHitCount() - hits >= 1);
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.expectThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigInteger;
+import org.testng.annotations.Test;
+
+public class MinimatchExpansionLimit {
+
+  private static final String PRODUCT = "{a,b,c,d}/{a,b,c,d}/{a,b,c,d}/{a,b,c,d}/{a,b,c,d}/*.js";
+
+  @Test
+  public void failsOverLimit() {
+    BraceExpansionLimitException e = expectThrows(BraceExpansionLimitException.class,
+        () -> new Minimatch(PRODUCT, Minimatch.NO_OPTIONS, 1000));
+    assertEquals(e.getPattern(), PRODUCT);
+    assertEquals(e.getCount(), BigInteger.valueOf(1024));
+
+    assertThrows(BraceExpansionLimitException.class, () -> Minimatch.braceExpand(PRODUCT, Minimatch.NO_OPTIONS, 1000));
+  }
+
+  @Test
+  public void matchesUnderLimit() {
+    Minimatch mm = new Minimatch(PRODUCT, Minimatch.NO_OPTIONS, 1024);
+    assertTrue(mm.match("a/b/c/d/a/x.js"));
+    assertFalse(mm.match("a/b/c/d/e/x.js"));
+
+    // braces are not expanded at all
+    assertTrue(new Minimatch(PRODUCT, Minimatch.NO_BRACE, 1).match(PRODUCT.replace("*", "x")));
+  }
+
+  @Test
+  public void doesNotCountLargeSequences() {
+    String pattern = "logs/{a,b}/{1..999999999}.txt";
+
+    Minimatch mm = new Minimatch(pattern, Minimatch.NO_OPTIONS, 10);
+    assertTrue(mm.match("logs/a/123456789.txt"));
+    // regular expression needs all values
+    assertThrows(BraceExpansionLimitException.class, mm::makeRe);
+
+    BraceExpansionLimitException e = expectThrows(BraceExpansionLimitException.class,
+        () -> new Minimatch(pattern, Minimatch.NO_CASE, 10));
+    assertEquals(e.getCount(), BigInteger.valueOf(1999999998));
+  }
+
+  @Test
+  public void failsOverLimitWithNestedSets() {
+    String pattern = "x{{a,b}{1..99999999}}y";
+    BraceExpansionLimitException e = expectThrows(BraceExpansionLimitException.class,
+        () -> new Minimatch(pattern, Minimatch.NO_OPTIONS, 1000));
+    assertEquals(e.getPattern(), pattern);
+    assertEquals(e.getCount(), BigInteger.valueOf(199999998));
+
+    e = expectThrows(BraceExpansionLimitException.class,
+        () -> new Minimatch("x{{a,b}..{1..99999999}}y", Minimatch.NO_OPTIONS, 1000));
+    assertEquals(e.getPattern(), "x{{a,b}..{1..99999999}}y");
+  }
+
+}
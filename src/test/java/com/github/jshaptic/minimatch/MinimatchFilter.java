@@ -0,0 +1,35 @@
+package com.github.jshaptic.minimatch;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class MinimatchFilter {
+
+  private final List<String> files = Arrays.asList("a.js", "x/b.js", ".c.js", "d.ts", "x/y/e.js");
+
+  @Test
+  public void filterByPattern() {
+    assertEquals(files.stream().filter(Minimatch.filter("*.js")).collect(toList()), Arrays.asList("a.js"));
+    assertEquals(files.stream().filter(Minimatch.filter("*.js", Minimatch.MATCH_BASE)).collect(toList()),
+        Arrays.asList("a.js", "x/b.js", "x/y/e.js"));
+    assertEquals(files.stream().filter(Minimatch.filter("**/*.js", Minimatch.DOT)).collect(toList()),
+        Arrays.asList("a.js", "x/b.js", ".c.js", "x/y/e.js"));
+  }
+
+  @Test
+  public void filterByCompiledPattern() {
+    Minimatch mm = new Minimatch("!**/*.js");
+    assertEquals(files.stream().filter(Minimatch.filter(mm)).collect(toList()), Arrays.asList(".c.js", "d.ts"));
+  }
+
+  @Test
+  public void filterWithSpecialPatterns() {
+    assertEquals(files.stream().filter(Minimatch.filter("#*.js")).collect(toList()), Arrays.asList());
+    assertEquals(Arrays.asList("", "a").stream().filter(Minimatch.filter("")).collect(toList()), Arrays.asList(""));
+  }
+
+}
@@ -0,0 +1,113 @@
+package com.github.jshaptic.minimatch;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class MinimatchGlobWalker {
+
+  private static final List<String> FILES = Arrays.asList("src/main/App.java", "src/main/util/Strings.java",
+      "src/main/.hidden/Secret.java", "src/test/AppTest.java", "src/README.md", "node_modules/lib/index.js",
+      "node_modules/lib/App.java", "build.gradle", "docs/index.md");
+
+  private Path root;
+
+  @BeforeClass
+  public void createTree() throws IOException {
+    root = Files.createTempDirectory("minimatch");
+    for (String file : FILES) {
+      Path path = root.resolve(file);
+      Files.createDirectories(path.getParent());
+      Files.write(path, file.getBytes("UTF-8"));
+    }
+  }
+
+  @AfterClass
+  public void deleteTree() throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void findsSameFilesAsMatch() throws IOException {
+    for (String pattern : Arrays.asList("**/*.java", "src/**/*.java", "src/*/*.java", "{src,docs}/**/*.md", "*",
+        "src/main", "src/main/", "**", "src/{main,test}/**", "missing/**", "!**/*.java", "**/index.*")) {
+      for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.DOT, Minimatch.MATCH_BASE}) {
+        Minimatch mm = new Minimatch(pattern, options);
+        assertEquals(relative(new GlobWalker(mm).glob(root)), walkAll(mm), pattern + " with options " + options);
+      }
+    }
+  }
+
+  @Test
+  public void skipsDirectoriesWithoutMatches() throws IOException {
+    List<Path> listed = Collections.synchronizedList(new ArrayList<>());
+    GlobWalker walker = new GlobWalker(new Minimatch("{src,docs}/**/*.java"), ForkJoinPool.commonPool(), listed::add);
+    assertEquals(relative(walker.glob(root)),
+        Arrays.asList("src/main/App.java", "src/main/util/Strings.java", "src/test/AppTest.java"));
+    // node_modules and dot directories are never listed
+    assertEquals(relative(listed), Arrays.asList("", "docs", "src", "src/main", "src/main/util", "src/test"));
+
+    listed.clear();
+    new GlobWalker(new Minimatch("src/**/*.java"), ForkJoinPool.commonPool(), listed::add).glob(root);
+    // walk starts from the literal prefix
+    assertEquals(relative(listed), Arrays.asList("src", "src/main", "src/main/util", "src/test"));
+  }
+
+  @Test
+  public void passesAttributes() throws IOException {
+    ConcurrentHashMap<String, Boolean> directories = new ConcurrentHashMap<>();
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      new GlobWalker(new Minimatch("src/*"), pool).walk(root,
+          (path, attrs) -> directories.put(relative(path), attrs.isDirectory()));
+    } finally {
+      pool.shutdown();
+    }
+    assertTrue(directories.get("src/main"));
+    assertFalse(directories.get("src/README.md"));
+    assertEquals(directories.size(), 3);
+  }
+
+  @Test
+  public void missingRoot() {
+    assertThrows(IOException.class, () -> new GlobWalker(new Minimatch("**")).glob(root.resolve("missing")));
+  }
+
+  // paths, which match the pattern, found without any pruning
+  private List<String> walkAll(Minimatch mm) throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      return paths.filter(path -> !path.equals(root)).map(this::relative).filter(mm::match).sorted()
+          .collect(toList());
+    }
+  }
+
+  private List<String> relative(List<Path> paths) {
+    return paths.stream().map(this::relative).sorted().collect(toList());
+  }
+
+  private String relative(Path path) {
+    return root.relativize(path).toString().replace('\\', '/');
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class MinimatchGlobstar {
+
+  private static String path(String... segments) {
+    return String.join("/", segments);
+  }
+
+  @Test
+  public void multipleGlobstars() {
+    Minimatch mm = new Minimatch("**/a/**/b/**/*.js");
+
+    assertTrue(mm.match("a/b/c.js"));
+    assertTrue(mm.match("x/y/a/z/b/c.js"));
+    assertTrue(mm.match("a/a/b/b/c/d/e.js"));
+    assertFalse(mm.match("b/a/c.js"));
+    assertFalse(mm.match("a/b/c.ts"));
+    assertFalse(mm.match("x/.y/a/b/c.js"));
+    assertTrue(new Minimatch("**/a/**/b/**/*.js", Minimatch.DOT).match("x/.y/a/b/c.js"));
+  }
+
+  @Test
+  public void globstarsBetweenLiterals() {
+    Minimatch mm = new Minimatch("a/**/b/**/c");
+
+    assertTrue(mm.match("a/b/c"));
+    assertTrue(mm.match("a/x/b/y/c"));
+    assertTrue(mm.match("a/b/c/"));
+    assertFalse(mm.match("a/b"));
+    assertFalse(mm.match("a/b/c/d"));
+    assertFalse(mm.match("a/../b/c"));
+  }
+
+  @Test
+  public void partialPaths() {
+    Minimatch mm = new Minimatch("a/**/b/**/c");
+
+    assertTrue(mm.match("a", true));
+    assertTrue(mm.match("a/b", true));
+    assertTrue(mm.match("a/x/y/z", true));
+    assertTrue(mm.match("a/b/c", true));
+    assertFalse(mm.match("b", true));
+    assertFalse(mm.match("x/a/b", true));
+    assertFalse(mm.match("a/.x", true));
+  }
+
+  @Test
+  public void manyGlobstarsDoNotBacktrackWithoutLimit() {
+    StringBuilder pattern = new StringBuilder();
+    for (int i = 0; i < 12; i++) {
+      pattern.append("**/x/");
+    }
+    pattern.append("*.js");
+
+    String[] segments = new String[40];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = "x";
+    }
+    // extension and depth are right, so the path fails only after all ways to place the globstars are tried
+    segments[segments.length - 2] = "z";
+    segments[segments.length - 1] = "y.js";
+
+    Minimatch mm = new Minimatch(pattern.toString());
+    assertFalse(mm.match(path(segments)));
+
+    segments[segments.length - 2] = "x";
+    assertTrue(mm.match(path(segments)));
+  }
+
+}
@@ -0,0 +1,80 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.testng.annotations.Test;
+
+public class MinimatchIgnoreRules {
+
+  private final IgnoreRules rules = new IgnoreRules(Arrays.asList(
+      "# build output",
+      "*.log",
+      "!important.log",
+      "",
+      "/build/",
+      "doc/*.txt",
+      "cache/",
+      "!cache/keep.me",
+      "\\#notes",
+      "\\!bang",
+      "trailing\\ ",
+      "spaces   ",
+      "**/tmp/**",
+      ".*",
+      "!.gitignore"));
+
+  @Test
+  public void appliesLastMatchingRule() {
+    assertTrue(rules.isIgnored("debug.log", false));
+    assertTrue(rules.isIgnored("src/debug.log", false));
+    assertFalse(rules.isIgnored("important.log", false));
+    assertFalse(rules.isIgnored("src/important.log", false));
+    assertFalse(rules.isIgnored("debug.txt", false));
+    assertTrue(rules.isIgnored(".env", false));
+    assertFalse(rules.isIgnored(".gitignore", false));
+    assertTrue(rules.isIgnored("src/.idea", true));
+
+    assertEquals(rules.findRule("debug.log", false), 1);
+    assertEquals(rules.findRule("important.log", false), 2);
+    assertTrue(rules.isNegated(2));
+    assertEquals(rules.findRule("src/main.c", false), -1);
+    assertEquals(rules.size(), 15);
+  }
+
+  @Test
+  public void anchorsRulesWithSlashes() {
+    assertTrue(rules.isIgnored("build", true));
+    assertFalse(rules.isIgnored("build", false));
+    assertFalse(rules.isIgnored("src/build", true));
+    assertTrue(rules.isIgnored("doc/a.txt", false));
+    assertFalse(rules.isIgnored("doc/sub/a.txt", false));
+    assertFalse(rules.isIgnored("src/doc/a.txt", false));
+    assertTrue(rules.isIgnored("a/tmp/b", false));
+    assertFalse(rules.isIgnored("a/tmp", true));
+  }
+
+  @Test
+  public void excludesWholeSubtrees() {
+    assertTrue(rules.isSubtreeExcluded("build"));
+    assertTrue(rules.isSubtreeExcluded("build/"));
+    assertTrue(rules.isIgnored("build/classes/A.class", false));
+    assertTrue(rules.isSubtreeExcluded("src/cache"));
+    // parent directory is excluded, so file can't be re-included
+    assertTrue(rules.isIgnored("cache/keep.me", false));
+    assertEquals(rules.findRule("cache/keep.me", false), 7);
+    assertFalse(rules.isSubtreeExcluded("src"));
+  }
+
+  @Test
+  public void unescapesSpecialChars() {
+    assertTrue(rules.isIgnored("#notes", false));
+    assertTrue(rules.isIgnored("!bang", false));
+    assertTrue(rules.isIgnored("trailing ", false));
+    assertFalse(rules.isIgnored("trailing", false));
+    assertTrue(rules.isIgnored("spaces", false));
+  }
+
+}
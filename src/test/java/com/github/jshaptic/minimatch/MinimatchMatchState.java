@@ -0,0 +1,89 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class MinimatchMatchState {
+
+  private static final List<String> PATTERNS = Arrays.asList("src/**/*.js", "src/{a,b}/*/x", "/*/b/*/d", "a/**/b/**/c",
+      "*.js", "!src/*.js", "**", "a/*", "src/**", "");
+  private static final List<String> PATHS = Arrays.asList("src", "src/a", "src/a/b.js", "src/.a/b.js", "src/b/c/x",
+      "src/b/c/x/y", "/a/b", "/a/b/c/d", "a/b/x/c", "a/c", "a/b/", "x.js", "a/.b/c", "src/x.js", "", "/",
+      "//", "src//a/b.js", "a//b//x///c", "//a/b", "a/b//", "src/b//", "///x.js");
+
+  @Test
+  public void matchesSameAsPath() {
+    for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.DOT, Minimatch.MATCH_BASE, Minimatch.FLIP_NEGATE}) {
+      for (String pattern : PATTERNS) {
+        Minimatch mm = new Minimatch(pattern, options);
+        for (String path : PATHS) {
+          MatchState state = mm.matchState();
+          for (String segment : path.split("/", -1)) {
+            state = state.next(segment);
+          }
+          String message = pattern + " vs " + path + " with options " + options;
+          assertEquals(state.matches(), mm.match(path), message);
+          assertEquals(state.matchesPartially(), mm.match(path, true), message);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void matchesPartially() {
+    assertTrue(new Minimatch("/*/b/*/d").match("/a/b", true));
+    assertFalse(new Minimatch("/*/b/*/d").match("/a/c", true));
+    assertFalse(new Minimatch("/*/b/*/d").match("/a/b"));
+    assertTrue(new Minimatch("a/**/c").match("a/b/x", true));
+    assertTrue(new Minimatch("src/{a,b}/*.js").match("src/b", true));
+  }
+
+  @Test
+  public void prunesDirectoriesWithoutMatches() {
+    MatchState src = new Minimatch("src/{a,b}/*.js").matchState().next("src");
+    assertTrue(src.canMatchBelow());
+    assertTrue(src.next("a").canMatchBelow());
+    assertFalse(src.next("c").canMatchBelow());
+    assertFalse(src.next("a").next("x.js").canMatchBelow());
+    assertTrue(src.next("a").next("x.js").matches());
+
+    MatchState globstar = new Minimatch("src/**/*.js").matchState().next("src");
+    assertTrue(globstar.next("a").next("b").next("c").canMatchBelow());
+    assertFalse(new Minimatch("src/**/*.js").matchState().next("test").canMatchBelow());
+
+    // negated patterns may match anything below
+    assertTrue(new Minimatch("!src/**").matchState().next("src").canMatchBelow());
+    assertFalse(new Minimatch("# comment").matchState().canMatchBelow());
+  }
+
+  @Test
+  public void stateIsReusable() {
+    MatchState dir = new Minimatch("src/*.{js,ts}").matchState().next("src");
+    assertTrue(dir.next("a.js").matches());
+    assertTrue(dir.next("b.ts").matches());
+    assertFalse(dir.next("c.css").matches());
+    assertEquals(dir.next("a.js").getDepth(), 2);
+  }
+
+  @Test
+  public void collapsesRepeatedSlashes() {
+    MatchState state = new Minimatch("a/b").matchState().next("a").next("");
+    assertFalse(state.matches());
+    assertTrue(state.next("").next("b").matches());
+    assertEquals(state.next("").next("b").getDepth(), 2);
+    // trailing slash is kept
+    assertEquals(state.next("").getDepth(), 2);
+  }
+
+  @Test
+  public void segmentsMustNotContainSlash() {
+    assertThrows(IllegalArgumentException.class, () -> new Minimatch("a/b").matchState().next("a/b"));
+  }
+
+}
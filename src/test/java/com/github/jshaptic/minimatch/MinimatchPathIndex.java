@@ -0,0 +1,66 @@
+package com.github.jshaptic.minimatch;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import org.testng.annotations.Test;
+
+public class MinimatchPathIndex {
+
+  @Test
+  public void selectsSameAsMatch() {
+    // non-ASCII paths are decoded before they are matched
+    List<String> paths = new ArrayList<>(MinimatchSelect.PATHS);
+    paths.addAll(Arrays.asList("src/main/Über.java", "docs/日本/readme.md", "src/main/App.java"));
+    List<String> patterns = new ArrayList<>(MinimatchSelect.PATTERNS);
+    patterns.addAll(Arrays.asList("docs/日本/*", "**/Ü*", "#comment"));
+
+    TreeSet<String> sorted = new TreeSet<>(paths);
+    PathIndex index = new PathIndex(paths);
+    assertEquals(index.size(), sorted.size());
+    assertEquals(index.stream().collect(toList()), new ArrayList<>(sorted));
+    for (String pattern : patterns) {
+      for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.MATCH_BASE, Minimatch.NO_CASE, Minimatch.DOT}) {
+        Minimatch mm = new Minimatch(pattern, options);
+        assertEquals(index.select(mm).collect(toList()), sorted.stream().filter(mm::match).collect(toList()),
+            pattern + " with options " + options);
+      }
+    }
+  }
+
+  @Test
+  public void spansManyBlocks() {
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      paths.add(String.format("src/module%03d/file%d.%s", i / 10, i % 10, i % 3 == 0 ? "js" : "ts"));
+    }
+    Collections.shuffle(paths);
+    PathIndex index = new PathIndex(paths);
+    assertEquals(index.select(new Minimatch("src/module05{0,9}/*.js")).collect(toList()),
+        Arrays.asList("src/module050/file1.js", "src/module050/file4.js", "src/module050/file7.js",
+            "src/module059/file1.js", "src/module059/file4.js", "src/module059/file7.js"));
+    assertEquals(index.select(new Minimatch("**/*.ts")).count(), 666);
+    // shared prefixes are stored once
+    assertTrue(index.getEncodedSize() < 1000 * 10);
+  }
+
+  @Test
+  public void emptyIndex() {
+    PathIndex index = new PathIndex(Collections.<String>emptyList());
+    assertEquals(index.select(new Minimatch("src/**")).count(), 0);
+    assertEquals(index.stream().count(), 0);
+  }
+
+  @Test
+  public void patternIsRequired() {
+    assertThrows(NullPointerException.class, () -> new PathIndex(MinimatchSelect.PATHS).select(null));
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class MinimatchPathTokens {
+
+  private final List<String> paths = Arrays.asList("", "/", "//", "a", "a/", "/a", "a/b", "a//b", "///a///b///", ".",
+      "./a", "a/../b", "a/.b/", "/.../..", "x\\/y");
+
+  @Test
+  public void splitsLikeRegExp() {
+    for (String path : paths) {
+      String[] expected = path.split("\\/+", -1);
+      PathTokens tokens = PathTokens.tokenize(path);
+      assertEquals(tokens.size(), expected.length, path);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(tokens.segment(i), expected[i], path);
+        assertEquals(tokens.isEmpty(i), expected[i].isEmpty(), path);
+        assertEquals(tokens.isDot(i), expected[i].startsWith("."), path);
+        assertEquals(tokens.isDotOrDoubleDot(i), expected[i].equals(".") || expected[i].equals(".."), path);
+        assertTrue(tokens.equals(i, expected[i], false), path);
+      }
+    }
+  }
+
+  @Test
+  public void comparesSegments() {
+    PathTokens tokens = PathTokens.tokenize(new StringBuilder("/Foo/bar/"));
+    assertTrue(tokens.equals(1, "Foo", false));
+    assertFalse(tokens.equals(1, "foo", false));
+    assertTrue(tokens.equals(1, "foo", true));
+    assertFalse(tokens.equals(2, "ba", false));
+    assertEquals(tokens.basename().segment(0), "bar");
+    assertEquals(PathTokens.tokenize("/").basename().segment(0), "");
+  }
+
+  @Test
+  public void copiesMutablePath() {
+    StringBuilder path = new StringBuilder("a/b");
+    PathTokens tokens = PathTokens.of(path);
+    path.replace(0, path.length(), "x/y/z");
+    assertEquals(tokens.size(), 2);
+    assertEquals(tokens.segment(1), "b");
+  }
+
+  @Test
+  public void exposesPathFlags() {
+    PathTokens tokens = PathTokens.of("a/b/c.js");
+    assertSame(tokens.basename(), tokens.basename());
+    assertSame(tokens.basename().basename(), tokens.basename());
+    assertFalse(tokens.hasDotSegment());
+    assertTrue(PathTokens.of("a/.git/c").hasDotSegment());
+    assertTrue(PathTokens.of("../c").hasDotSegment());
+  }
+
+  @Test
+  public void matchesSameAsString() {
+    List<String> patterns = Arrays.asList("*.js", "a/**", "**/c.js", "!a/*", "a/{b,x}/*.js", "#a", "", "/**", "a/b/");
+    for (String path : Arrays.asList("", "/", "a", "a/b/c.js", "c.js", "a/b/", "/a/b/c.js", "a/.b/c.js")) {
+      PathTokens tokens = PathTokens.of(path);
+      for (String pattern : patterns) {
+        for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.MATCH_BASE, Minimatch.DOT}) {
+          Minimatch mm = new Minimatch(pattern, options);
+          assertEquals(mm.match(tokens), mm.match(path), pattern + " vs " + path);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class MinimatchPatternSet {
+
+  private final List<String> patterns = Arrays.asList("*.js", "**/*.js", "src/**/*.js", "src/*.min.js", "src/main/App.js",
+      "src/{main,test}/*.{js,ts}", "a/b/", "/a/**", "!**/*.js", "#comment", "", "**", "src/**", "Makefile",
+      "**/Makefile", "*.+(js|ts)", "src/[a-z]*/x.?s", "src/**/.*", ".git/**", "*.", "src/main/", "*foo.js", "./a");
+  private final List<String> paths = Arrays.asList("", "/", "a.js", "src/a.js", "src/main/App.js", "src/main/App.ts",
+      "src/test/x.js", "src/test/x.js/", "src/b.min.js", "a/b", "a/b/", "/a/b/c.js", "Makefile", "lib/Makefile",
+      "src/.hidden.js", ".git/config", "x.", "src/main", "src/main/", "foo.js", "afoo.js", "./a", "src/x/y/z/w.ts");
+
+  @Test
+  public void matchesSameAsMinimatch() {
+    for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.MATCH_BASE, Minimatch.DOT, Minimatch.NO_CASE,
+        Minimatch.FLIP_NEGATE, Minimatch.MATCH_BASE | Minimatch.DOT}) {
+      PatternSet set = new PatternSet();
+      for (String pattern : patterns) {
+        set.add(pattern, options);
+      }
+      for (String path : paths) {
+        BitSet expected = new BitSet();
+        for (int id = 0; id < patterns.size(); id++) {
+          if (new Minimatch(patterns.get(id), options).match(path)) {
+            expected.set(id);
+          }
+        }
+        assertEquals(set.match(path), expected, path + " with options " + options);
+        assertEquals(set.findLast(path), expected.previousSetBit(patterns.size()), path + " with options " + options);
+      }
+    }
+  }
+
+  @Test
+  public void assignsSequentialIds() {
+    PatternSet set = new PatternSet();
+    assertEquals(set.add("*.js"), 0);
+    assertEquals(set.add("*.ts", Minimatch.MATCH_BASE), 1);
+    assertEquals(set.add(new Minimatch("a/**")), 2);
+    assertEquals(set.size(), 3);
+    assertEquals(set.get(1).getOptions(), Minimatch.MATCH_BASE);
+
+    BitSet expected = new BitSet();
+    expected.set(1);
+    expected.set(2);
+    assertEquals(set.match("a/b/c.ts"), expected);
+  }
+
+}
@@ -0,0 +1,57 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.testng.annotations.Test;
+
+public class MinimatchSegmentMatcher {
+
+  private static final int SEGMENT =
+      Minimatch.NO_BRACE | Minimatch.NO_GLOBSTAR | Minimatch.NO_NEGATE | Minimatch.NO_COMMENT;
+
+  private final List<String> globs = Arrays.asList("*", "*.js", "foo*", "a?c", "*test*", "f*.js", "*a*b?c*", "?",
+      "[a-c]*", "[!a-c]*", "[^.]x", "*.[jt]s", "[-a]", "[a-]", "a\\*b*", "\\[*", "+a*", "@a?", "!a*", "a|*", "\\|*",
+      "a\\", "*\\\\", ".*", "..?", "*.", "[A-Z]?");
+  private final List<String> paths = Arrays.asList("", ".", "..", "...", ".js", "a.js", "A.JS", "foo", "foobar",
+      "FOO", "abc", "aBc", "ac", "atestb", "test", "f.js", "fo.js", "axbyc", "aaabbc", "-", "a", "b", "x", ".x", "ax",
+      "a*bc", "[a", "+ab", "@ab", "!ab", "a|b", "|b", "a\\", "ab\\", "Z1", "z1", "\nx", ".\n", "😀",
+      "a😀c");
+
+  @Test
+  public void compilesSimpleShapes() {
+    for (String glob : Arrays.asList("*.js", "foo*", "a?c", "*test*", "[a-z]*.txt", "[!.]*")) {
+      assertNotNull(SegmentMatcher.compile(glob, Minimatch.NO_OPTIONS), glob);
+    }
+    for (String glob : Arrays.asList("+(a|b)", "*(a)", "!(x)", "a\\@b*", "[[]*", "[]]*", "[a&&b]*", "[z-a]*")) {
+      assertNull(SegmentMatcher.compile(glob, Minimatch.NO_OPTIONS), glob);
+    }
+    // plain literals are compared as strings
+    assertNull(SegmentMatcher.compile("abc", Minimatch.NO_OPTIONS));
+    assertNotNull(SegmentMatcher.compile("abc", Minimatch.NO_CASE));
+  }
+
+  @Test
+  public void matchesLikeRegExp() {
+    for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.DOT, Minimatch.NO_CASE, Minimatch.NO_EXT,
+        Minimatch.DOT | Minimatch.NO_CASE}) {
+      for (String glob : globs) {
+        SegmentMatcher matcher = SegmentMatcher.compile(glob, options | SEGMENT);
+        if (matcher == null) {
+          continue;
+        }
+        Pattern re = Minimatch.makeRe(glob, options | SEGMENT);
+        for (String path : paths) {
+          String message = glob + " vs " + path + " with options " + options;
+          assertEquals(matcher.matches(path), re.matcher(path).matches(), message);
+          assertEquals(matcher.matches("x/" + path + "/y", 2, 2 + path.length()), re.matcher(path).matches(), message);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+package com.github.jshaptic.minimatch;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.testng.annotations.Test;
+
+public class MinimatchSelect {
+
+  static final List<String> PATHS = Arrays.asList("src/main/App.java", "src/main/util/Strings.java",
+      "src/main/", "src/main", "src/mainly/x.java", "src/test/AppTest.java", "src//main/Other.java",
+      "src/main//Double.java", "/src/main/Abs.java", "//src/main/Abs.java", "src/logs/2024-01.log",
+      "src/logs/2023-12.log", "lib/index.js", "lib/src/main/Lib.java", "a", "", "src/\uFFFF/x.java",
+      "src/\uFFFF\uFFFF");
+
+  static final List<String> PATTERNS = Arrays.asList("src/main/*.java", "src/main/**", "src/{main,test}/*.java",
+      "src/main", "src/main/", "/src/main/*", "src/logs/2024-*", "**/*.java", "*", "src/*/x.java", "!src/**",
+      "*.java", "src/\uFFFF*", "");
+
+  @Test
+  public void selectsSameAsMatch() {
+    NavigableSet<String> set = new TreeSet<>(PATHS);
+    NavigableMap<String, Integer> map = new TreeMap<>();
+    for (String path : PATHS) {
+      map.put(path, path.length());
+    }
+    for (String pattern : PATTERNS) {
+      for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.MATCH_BASE, Minimatch.NO_CASE}) {
+        Minimatch mm = new Minimatch(pattern, options);
+        List<String> expected = set.stream().filter(mm::match).collect(toList());
+        String message = pattern + " with options " + options;
+        assertEquals(mm.select(set).collect(toList()), expected, message);
+        assertEquals(mm.select(map).map(Map.Entry::getKey).collect(toList()), expected, message);
+      }
+    }
+  }
+
+  @Test
+  public void scansOnlyPrefixRanges() {
+    List<String> scanned = new ArrayList<>();
+    NavigableSet<String> set = new TreeSet<String>(PATHS) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public NavigableSet<String> subSet(String from, boolean fromInclusive, String to, boolean toInclusive) {
+        NavigableSet<String> result = super.subSet(from, fromInclusive, to, toInclusive);
+        scanned.addAll(result);
+        return result;
+      }
+    };
+    Minimatch mm = new Minimatch("src/{main,test}/App*.java");
+    assertEquals(mm.select(set).collect(toList()), Arrays.asList("src/main/App.java", "src/test/AppTest.java"));
+    assertEquals(scanned, Arrays.asList("src/main/App.java", "src/test/AppTest.java"));
+  }
+
+  @Test
+  public void scansSetWithOtherOrder() {
+    NavigableSet<String> set = new TreeSet<>(Collections.reverseOrder());
+    set.addAll(PATHS);
+    assertEquals(new Minimatch("src/main/*.java").select(set).collect(toList()),
+        Arrays.asList("src/main/App.java", "src/main//Double.java", "src//main/Other.java"));
+  }
+
+}
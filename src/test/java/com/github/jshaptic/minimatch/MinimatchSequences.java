@@ -0,0 +1,60 @@
+package com.github.jshaptic.minimatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class MinimatchSequences {
+
+  private static final int ROW = Minimatch.NO_BRACE | Minimatch.NO_NEGATE | Minimatch.NO_COMMENT;
+
+  private final List<String> patterns = Arrays.asList("app-{1..100}.log", "x/{01..100}/y", "{-05..100}", "{100..1..3}",
+      "a{-50..50..7}b", "{a..z..1}{A..Z}", "{z..a}/*.js", "{0..40..040}", "{a,b}/{1..40}{c,d}", "{0001..40}/**",
+      "{5..-60}.{js,ts}", "x{1..40}*", "{1..40}/{a..A}", "!{1..50}", "{1..50}/{1..50}");
+  private final List<String> paths = Arrays.asList("app-1.log", "app-100.log", "app-101.log", "app-01.log", "x/007/y",
+      "x/7/y", "x/100/y", "-05", "-5", "005", "100", "97", "98", "a-48b", "a-50b", "a6b", "az", "zA", "k/a.js", "040",
+      "000", "0040", "a/39c", "b/40d", "a/41c", "0001/x/y", "0040", "-60.ts", "-59.js", "x1", "x1a", "3/a", "3/Z", "51",
+      "50/1", "50/51");
+
+  @Test
+  public void matchesSameAsExpandedRows() {
+    for (int options : new int[] {Minimatch.NO_OPTIONS, Minimatch.DOT, Minimatch.MATCH_BASE}) {
+      for (String pattern : patterns) {
+        Minimatch mm = new Minimatch(pattern, options);
+        boolean negate = pattern.startsWith("!");
+        List<Minimatch> rows = new ArrayList<>();
+        for (String row : BraceExpansion.expand(negate ? pattern.substring(1) : pattern)) {
+          rows.add(new Minimatch(row, options | ROW));
+        }
+        for (String path : paths) {
+          boolean expected = false;
+          for (Minimatch row : rows) {
+            expected |= row.match(path);
+          }
+          assertEquals(mm.match(path), expected != negate, pattern + " vs " + path + " with options " + options);
+          if (options != Minimatch.MATCH_BASE) {
+            // regexp is built from all values of the sequences
+            assertEquals(mm.makeRe().matcher(path).matches(), expected != negate, pattern + " vs " + path);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void doesNotExpandLargeSequences() {
+    Minimatch mm = new Minimatch("logs/app-{1..1000000000}.log");
+    assertTrue(mm.match("logs/app-1.log"));
+    assertTrue(mm.match("logs/app-1000000000.log"));
+    assertFalse(mm.match("logs/app-0.log"));
+    assertFalse(mm.match("logs/app-01.log"));
+    assertFalse(mm.match("logs/app-1000000001.log"));
+    assertFalse(mm.match("logs/app-99999999999999999999999.log"));
+  }
+
+}
@@ -118,4 +118,25 @@ public class BalancedMatchTest {
     assertEquals(result.getPost(), "post");
   }
 
+  @Test
+  public void rangeInBounds() {
+    String[][] cases = {{"{", "}", "pre{in{nest}}post"}, {"{", "}", "{{{{{{{{{in}post"}, {"{", "}", "pre}{in{nest}}post"},
+        {"{", "}", "a{b}c{d}e"}, {"<b>", "</b>", "pre<b>in<b>nest</b></b>post"}, {"{", "{", "a{b{c"}};
+    for (String[] c : cases) {
+      String str = c[2];
+      for (int from = 0; from <= str.length(); from++) {
+        for (int to = from; to <= str.length(); to++) {
+          BalancedMatch.RangePair expected = BalancedMatch.range(c[0], c[1], str.substring(from, to));
+          BalancedMatch.RangePair actual = BalancedMatch.range(c[0], c[1], new StringBuilder(str), from, to);
+          if (expected == null) {
+            assertNull(actual);
+          } else {
+            assertEquals(actual.getAIndex(), expected.getAIndex() + from);
+            assertEquals(actual.getBIndex(), expected.getBIndex() + from);
+          }
+        }
+      }
+    }
+  }
+
 }
@@ -0,0 +1,60 @@
+package com.github.jshaptic.minimatch.balancedmatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+import com.github.jshaptic.minimatch.BalancedScanner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+import org.testng.annotations.Test;
+
+public class BalancedScannerTest {
+
+  private static List<String> scan(BalancedScanner scanner, String str) {
+    List<String> result = new ArrayList<>();
+    scanner.scan(str).forEachRemaining(p -> result.add(str.substring(p.getStart(), p.getPostStart())));
+    return result;
+  }
+
+  @Test
+  public void findsAllPairs() {
+    BalancedScanner scanner = BalancedScanner.of("{", "}");
+    assertEquals(scan(scanner, "pre{in{nest}}post"), Arrays.asList("{nest}", "{in{nest}}"));
+    assertEquals(scan(scanner, "pre{body}between{body2}post"), Arrays.asList("{body}", "{body2}"));
+    assertEquals(scan(scanner, "{{{{{{{{{in}post"), Arrays.asList("{in}"));
+    assertEquals(scan(scanner, "pre}{in{nest}}}post"), Arrays.asList("{nest}", "{in{nest}}"));
+    assertEquals(scan(scanner, "nope"), Collections.emptyList());
+
+    assertEquals(scan(BalancedScanner.of("<b>", "</b>"), "pre<b>in<b>nest</b></b>post<b>x</b>"),
+        Arrays.asList("<b>nest</b>", "<b>in<b>nest</b></b>", "<b>x</b>"));
+    assertEquals(scan(BalancedScanner.of("'", "'"), "a'b'c'd'e'"), Arrays.asList("'b'", "'d'"));
+  }
+
+  @Test
+  public void findsPairsOfRegExpTokens() {
+    BalancedScanner scanner = BalancedScanner.of(Pattern.compile("\\{\\s*"), Pattern.compile("\\s*\\}"));
+    assertEquals(scan(scanner, "a{ b { c } } d{e}"), Arrays.asList("{ c }", "{ b { c } }", "{e}"));
+  }
+
+  @Test
+  public void returnsIndexes() {
+    BalancedScanner.Pair pair = BalancedScanner.of("<b>", "</b>").scan("pre<b>in</b>post").next();
+    assertEquals(pair.getStart(), 3);
+    assertEquals(pair.getBodyStart(), 6);
+    assertEquals(pair.getEnd(), 8);
+    assertEquals(pair.getPostStart(), 12);
+
+    Iterator<BalancedScanner.Pair> pairs = BalancedScanner.of("{", "}").scan("{a}{b}{c}", 3, 9);
+    assertEquals(pairs.next().getStart(), 3);
+    assertEquals(pairs.next().getStart(), 6);
+    assertFalse(pairs.hasNext());
+    assertThrows(NoSuchElementException.class, pairs::next);
+  }
+
+}
@@ -0,0 +1,68 @@
+package com.github.jshaptic.minimatch.braceexpansion;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.expectThrows;
+
+import com.github.jshaptic.minimatch.BraceExpansion;
+import com.github.jshaptic.minimatch.BraceExpansionLimitException;
+import java.math.BigInteger;
+import org.testng.annotations.Test;
+
+public class BraceExpansionCount {
+
+  private static final String[] PATTERNS = {"a{b,c{d,e},{f,g}h}x{y,z}", "{1..10..3}{a..c}", "x{{a,b}}y", "{,a}{,b}",
+      "{,}", "{Z..a}", "{a..Z}{,x}", "{,{,}}", "a{},b}c", "{a},b}", "${1..3}", "{3..-2}{00..2}", "abc", "",
+      "x{{a,b}{1..3}}y", "{{a,b}.c}", "{{a,b}..c}", "{{${a,b}}}", "a{{a,b}{1..3}.c}", "{{a,b.}.c}", "{{a.,b}{.,c}}",
+      "{{1..3}.}"};
+
+  @Test
+  public void countsSameAsExpand() {
+    for (String pattern : PATTERNS) {
+      assertEquals(BraceExpansion.count(pattern), BigInteger.valueOf(BraceExpansion.expand(pattern).length), pattern);
+    }
+  }
+
+  @Test
+  public void countsHugeProducts() {
+    assertEquals(BraceExpansion.count("{1..999999999}"), BigInteger.valueOf(999999999));
+    assertEquals(BraceExpansion.count("{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}"
+        + "{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}{0..9}"), BigInteger.TEN.pow(20));
+    assertThrows(ArithmeticException.class, () -> BraceExpansion.count("{1..3..0}"));
+  }
+
+  @Test
+  public void countsHugeNestedSets() {
+    // x{a1}y x{a2}y ... x{b99999999}y
+    assertEquals(BraceExpansion.count("x{{a,b}{1..99999999}}y"), BigInteger.valueOf(199999998));
+    // members have periods, but never two in a row, so they are not expanded again
+    assertEquals(BraceExpansion.count("a{{a,b}{1..2000000}.c}"), BigInteger.valueOf(4000000));
+
+    // members are expanded again, so they are created to count them
+    BraceExpansionLimitException e =
+        expectThrows(BraceExpansionLimitException.class, () -> BraceExpansion.count("x{{a,b}..{1..2000000}}y"));
+    assertNull(e.getCount());
+  }
+
+  @Test
+  public void failsOverLimit() {
+    assertEquals(BraceExpansion.expand("{a,b}{1..3}", 6).length, 6);
+
+    BraceExpansionLimitException e =
+        expectThrows(BraceExpansionLimitException.class, () -> BraceExpansion.expand("{a,b}{1..3}", 5));
+    assertEquals(e.getPattern(), "{a,b}{1..3}");
+    assertEquals(e.getLimit(), 5);
+    assertEquals(e.getCount(), BigInteger.valueOf(6));
+
+    e = expectThrows(BraceExpansionLimitException.class, () -> BraceExpansion.expand("{1..3..0}", 1000));
+    assertNull(e.getCount());
+
+    // members are expanded again, so they are not counted
+    e = expectThrows(BraceExpansionLimitException.class,
+        () -> BraceExpansion.expand("x{{a,b}..{1..99999999}}y", 1000));
+    assertEquals(e.getPattern(), "x{{a,b}..{1..99999999}}y");
+    assertNull(e.getCount());
+  }
+
+}
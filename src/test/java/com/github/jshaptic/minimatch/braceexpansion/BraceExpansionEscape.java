@@ -0,0 +1,37 @@
+package com.github.jshaptic.minimatch.braceexpansion;
+
+import static org.testng.Assert.assertEquals;
+
+import com.github.jshaptic.minimatch.BraceExpansion;
+import java.util.Arrays;
+import org.testng.annotations.Test;
+
+public class BraceExpansionEscape {
+
+  @Test
+  public void escapedCharactersAreLiterals() {
+    assertEquals(Arrays.asList(BraceExpansion.expand("a\\{b,c}d")), Arrays.asList("a{b,c}d"));
+    assertEquals(Arrays.asList(BraceExpansion.expand("{a\\,b,c}")), Arrays.asList("a,b", "c"));
+    assertEquals(Arrays.asList(BraceExpansion.expand("{1\\..3}")), Arrays.asList("{1..3}"));
+    assertEquals(Arrays.asList(BraceExpansion.expand("{a,b\\}}")), Arrays.asList("a", "b}"));
+  }
+
+  @Test
+  public void backslashesArePairedFromLeft() {
+    assertEquals(Arrays.asList(BraceExpansion.expand("\\\\{a,b}")), Arrays.asList("\\a", "\\b"));
+    assertEquals(Arrays.asList(BraceExpansion.expand("\\\\\\{a,b}")), Arrays.asList("\\{a,b}"));
+    assertEquals(Arrays.asList(BraceExpansion.expand("\\a{b,c}")), Arrays.asList("\\ab", "\\ac"));
+  }
+
+  @Test
+  public void escapesSurviveNestedExpansion() {
+    assertEquals(Arrays.asList(BraceExpansion.expand("x{{a\\,b,c}}y")), Arrays.asList("x{a,b}y", "x{c}y"));
+    assertEquals(Arrays.asList(BraceExpansion.expand("{a\\,b},c}")), Arrays.asList("a,b}", "c"));
+  }
+
+  @Test
+  public void sameMembersWithDifferentEscapesAreExpandedSeparately() {
+    assertEquals(Arrays.asList(BraceExpansion.expand("x{{b,c}d,{b\\,c}d}")), Arrays.asList("xbd", "xcd", "x{b,c}d"));
+  }
+
+}
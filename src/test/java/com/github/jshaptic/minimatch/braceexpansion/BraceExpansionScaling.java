@@ -0,0 +1,75 @@
+package com.github.jshaptic.minimatch.braceexpansion;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+
+import com.github.jshaptic.minimatch.BraceExpansion;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.annotations.Test;
+
+public class BraceExpansionScaling {
+
+  private static final int[] LEVELS = {10, 100, 1000};
+
+  @Test
+  public void expandsDeeplyNestedSets() {
+    for (int levels : LEVELS) {
+      // {a,{a,{a,b}}}
+      String pattern = StringUtils.repeat("{a,", levels) + "b" + StringUtils.repeat("}", levels);
+      List<String> expected = new ArrayList<>(Collections.nCopies(levels, "a"));
+      expected.add("b");
+      assertEquals(BraceExpansion.stream(pattern).collect(toList()), expected, "levels: " + levels);
+    }
+  }
+
+  @Test
+  public void expandsDeeplyNestedSingleMembers() {
+    for (int levels : LEVELS) {
+      // x{{{a,b}}}y
+      String pattern = "x" + StringUtils.repeat("{", levels) + "a,b" + StringUtils.repeat("}", levels) + "y";
+      String braces = StringUtils.repeat("{", levels - 1);
+      String closing = StringUtils.repeat("}", levels - 1);
+      assertEquals(BraceExpansion.stream(pattern).collect(toList()),
+          Arrays.asList("x" + braces + "a" + closing + "y", "x" + braces + "b" + closing + "y"),
+          "levels: " + levels);
+    }
+  }
+
+  @Test
+  public void expandsLongListsOfSets() {
+    for (int levels : LEVELS) {
+      String pattern = StringUtils.repeat("{a,b}", levels);
+      assertEquals(BraceExpansion.count(pattern), BigInteger.valueOf(2).pow(levels), "levels: " + levels);
+      assertEquals(BraceExpansion.stream(pattern).findFirst().get(), StringUtils.repeat("a", levels));
+    }
+  }
+
+  @Test
+  public void expandsLongListsOfMembers() {
+    List<String> members = IntStream.range(0, 10000).mapToObj(i -> "{" + i + "}").collect(Collectors.toList());
+    String pattern = "x{" + String.join(",", members) + "}";
+    assertEquals(BraceExpansion.stream(pattern).collect(toList()),
+        members.stream().map(m -> "x" + m).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void expandsRepeatedMembers() {
+    for (int levels : LEVELS) {
+      // x{{a,b}-{1..2},{a,b}-{1..2}}
+      String pattern = "x{" + String.join(",", Collections.nCopies(levels, "{a,b}-{1..2}")) + "}";
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < levels; i++) {
+        expected.addAll(Arrays.asList("xa-1", "xa-2", "xb-1", "xb-2"));
+      }
+      assertEquals(BraceExpansion.stream(pattern).collect(toList()), expected, "levels: " + levels);
+    }
+  }
+
+}
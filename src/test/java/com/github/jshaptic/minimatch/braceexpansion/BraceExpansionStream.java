@@ -0,0 +1,65 @@
+package com.github.jshaptic.minimatch.braceexpansion;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+import com.github.jshaptic.minimatch.BraceExpansion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.testng.annotations.Test;
+
+public class BraceExpansionStream {
+
+  private static final String[] PATTERNS = {"a{b,c{d,e},{f,g}h}x{y,z}", "{1..10..3}{a..c}", "x{{a,b}}y", "{,a}{,b}",
+      "a{},b}c", "{a},b}", "${1..3}", "{3..-2}{00..2}", "abc"};
+
+  @Test
+  public void streamsSameAsExpand() {
+    for (String pattern : PATTERNS) {
+      List<String> expected = Arrays.asList(BraceExpansion.expand(pattern));
+      assertEquals(BraceExpansion.stream(pattern).collect(toList()), expected, pattern);
+      assertEquals(BraceExpansion.stream(pattern).parallel().collect(toList()), expected, pattern);
+
+      List<String> actual = new ArrayList<>();
+      BraceExpansion.iterator(pattern).forEachRemaining(actual::add);
+      assertEquals(actual, expected, pattern);
+    }
+  }
+
+  @Test
+  public void streamsHugeProducts() {
+    assertEquals(BraceExpansion.stream("{1..1000000}/{a..z}/{1..1000000}").limit(3).collect(toList()),
+        Arrays.asList("1/a/1", "1/a/2", "1/a/3"));
+    assertEquals(BraceExpansion.stream("{1..1000}{a..z}{1..100}").parallel().count(), 2600000);
+    assertEquals(BraceExpansion.stream("{1..100}{1..100}").parallel().skip(9998).collect(toList()),
+        Arrays.asList("10099", "100100"));
+  }
+
+  @Test
+  public void skipsEmptyExpansions() {
+    assertEquals(BraceExpansion.stream("{,}").count(), 0);
+    assertEquals(BraceExpansion.stream("{,a}").collect(toList()), Arrays.asList("a"));
+  }
+
+  @Test
+  public void iteratorEnds() {
+    Iterator<String> iterator = BraceExpansion.iterator("{a,b}");
+    assertEquals(iterator.next(), "a");
+    assertEquals(iterator.next(), "b");
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  public void emptyInput() {
+    assertEquals(BraceExpansion.stream("").count(), 0);
+    assertEquals(BraceExpansion.stream(null).count(), 0);
+    assertFalse(BraceExpansion.iterator("").hasNext());
+  }
+
+}
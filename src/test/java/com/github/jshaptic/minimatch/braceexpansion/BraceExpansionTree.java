@@ -0,0 +1,80 @@
+package com.github.jshaptic.minimatch.braceexpansion;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+import com.github.jshaptic.minimatch.BraceExpansion;
+import com.github.jshaptic.minimatch.ExpansionTree;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class BraceExpansionTree {
+
+  @Test
+  public void iteratesSameAsExpand() {
+    for (String pattern : Arrays.asList("very/long/prefix/{a..c}/{1..2}/file.txt", "x{{a,b}}y", "{,a}{,b}", "abc")) {
+      List<String> expected = Arrays.asList(BraceExpansion.expand(pattern));
+      ExpansionTree tree = BraceExpansion.tree(pattern);
+
+      List<String> actual = new ArrayList<>();
+      for (String expansion : tree) {
+        actual.add(expansion);
+      }
+      assertEquals(actual, expected, pattern);
+      // tree can be iterated again
+      assertEquals(tree.stream().collect(toList()), expected, pattern);
+      assertEquals(tree.count(), BigInteger.valueOf(expected.size()), pattern);
+    }
+  }
+
+  @Test
+  public void keepsLargeExpansionsCompact() {
+    ExpansionTree tree = BraceExpansion.tree("very/long/common/prefix/{a..z}/{1..1000000}/file.txt");
+    assertEquals(tree.count(), BigInteger.valueOf(26000000));
+    assertEquals(tree.stream().skip(1000000).findFirst().get(), "very/long/common/prefix/b/1/file.txt");
+  }
+
+  @Test
+  public void countsInfiniteExpansions() {
+    assertNull(BraceExpansion.tree("{1..3..0}").count());
+  }
+
+  @Test
+  public void emptyInput() {
+    assertEquals(BraceExpansion.tree("").count(), BigInteger.ZERO);
+    assertFalse(BraceExpansion.tree(null).iterator().hasNext());
+  }
+
+  @Test
+  public void streamsDistinctExpansions() {
+    ExpansionTree tree = BraceExpansion.tree("{b,a,{a,c},b}{1,1}");
+    List<String> expected = Arrays.asList("b1", "a1", "c1");
+    assertEquals(tree.distinct().collect(toList()), expected);
+    // only one expansion is remembered, the others are compared by building them again
+    assertEquals(tree.distinct(1).collect(toList()), expected);
+    assertEquals(BraceExpansion.tree("{,a,,a}").distinct().collect(toList()), Arrays.asList("a"));
+  }
+
+  @Test
+  public void streamsSortedDistinctExpansions() {
+    ExpansionTree tree = BraceExpansion.tree("{3..1}{1..3..2}{,}");
+    List<String> expected = Arrays.asList("11", "13", "21", "23", "31", "33");
+    assertEquals(tree.sorted().collect(toList()), expected);
+    // sorted in batches of two expansions
+    assertEquals(tree.sorted(2).collect(toList()), expected);
+    assertEquals(tree.sorted(1).collect(toList()), expected);
+  }
+
+  @Test
+  public void rememberedExpansionsMustBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> BraceExpansion.tree("{a,b}").distinct(0));
+    assertThrows(IllegalArgumentException.class, () -> BraceExpansion.tree("{a,b}").sorted(0));
+  }
+
+}